@@ -0,0 +1,236 @@
+package br.com.matheus.player.loadtest;
+
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.CopyObjectResult;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsResult;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.client.methods.HttpGet;
+
+/**
+ * In-process stand-in for the calls {@code S3Repository} makes. Every call sleeps for the
+ * configured latency so the service sees S3-like response times without leaving the JVM.
+ */
+public class InMemoryAmazonS3 extends AbstractAmazonS3 {
+
+    private final Map<String, ConcurrentSkipListMap<String, StoredObject>> buckets = new ConcurrentHashMap<>();
+    private final LoadProfile.Latency latency;
+
+    public InMemoryAmazonS3(final LoadProfile.Latency latency) {
+        this.latency = latency;
+    }
+
+    public void seed(final String bucketName, final String key, final byte[] data, final String contentType) {
+        final ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(contentType);
+        metadata.setContentLength(data.length);
+        bucket(bucketName).put(key, new StoredObject(data, metadata));
+    }
+
+    @Override
+    public String getObjectAsString(final String bucketName, final String key) {
+        awaitLatency();
+        return new String(find(bucketName, key).data(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public S3Object getObject(final String bucketName, final String key) {
+        return getObject(new GetObjectRequest(bucketName, key));
+    }
+
+    @Override
+    public S3Object getObject(final GetObjectRequest request) {
+        awaitLatency();
+        final StoredObject stored = find(request.getBucketName(), request.getKey());
+        byte[] data = stored.data();
+        if (request.getRange() != null) {
+            final long[] range = request.getRange();
+            final int start = (int) Math.min(range[0], data.length);
+            final int end = (int) Math.min(range[1] + 1, data.length);
+            data = Arrays.copyOfRange(data, start, end);
+        }
+        final S3Object object = new S3Object();
+        object.setBucketName(request.getBucketName());
+        object.setKey(request.getKey());
+        object.setObjectMetadata(stored.metadata().clone());
+        object.setObjectContent(new S3ObjectInputStream(new ByteArrayInputStream(data), new HttpGet()));
+        return object;
+    }
+
+    @Override
+    public PutObjectResult putObject(final String bucketName, final String key, final InputStream input,
+                                     final ObjectMetadata metadata) {
+        awaitLatency();
+        try {
+            final byte[] data = input.readAllBytes();
+            final ObjectMetadata stored = metadata == null ? new ObjectMetadata() : metadata.clone();
+            stored.setContentLength(data.length);
+            bucket(bucketName).put(key, new StoredObject(data, stored));
+            return new PutObjectResult();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public CopyObjectResult copyObject(final String sourceBucketName, final String sourceKey,
+                                       final String destinationBucketName, final String destinationKey) {
+        awaitLatency();
+        bucket(destinationBucketName).put(destinationKey, find(sourceBucketName, sourceKey));
+        return new CopyObjectResult();
+    }
+
+    @Override
+    public DeleteObjectsResult deleteObjects(final DeleteObjectsRequest request) {
+        awaitLatency();
+        final List<DeleteObjectsResult.DeletedObject> deleted = new ArrayList<>();
+        for (final DeleteObjectsRequest.KeyVersion key : request.getKeys()) {
+            bucket(request.getBucketName()).remove(key.getKey());
+            final DeleteObjectsResult.DeletedObject deletedObject = new DeleteObjectsResult.DeletedObject();
+            deletedObject.setKey(key.getKey());
+            deleted.add(deletedObject);
+        }
+        return new DeleteObjectsResult(deleted);
+    }
+
+    @Override
+    public boolean doesObjectExist(final String bucketName, final String key) {
+        awaitLatency();
+        return bucket(bucketName).containsKey(key);
+    }
+
+    @Override
+    public ObjectListing listObjects(final ListObjectsRequest request) {
+        awaitLatency();
+        final ObjectListing listing = new ObjectListing();
+        listing.setBucketName(request.getBucketName());
+        listing.setPrefix(request.getPrefix());
+        listing.setDelimiter(request.getDelimiter());
+        final Set<String> commonPrefixes = new LinkedHashSet<>();
+        for (final Map.Entry<String, StoredObject> entry : entriesWithPrefix(request.getBucketName(), request.getPrefix())) {
+            final String commonPrefix = commonPrefix(entry.getKey(), request.getPrefix(), request.getDelimiter());
+            if (commonPrefix != null) {
+                commonPrefixes.add(commonPrefix);
+            } else {
+                listing.getObjectSummaries().add(summary(request.getBucketName(), entry));
+            }
+        }
+        listing.setCommonPrefixes(new ArrayList<>(commonPrefixes));
+        return listing;
+    }
+
+    @Override
+    public ListObjectsV2Result listObjectsV2(final ListObjectsV2Request request) {
+        awaitLatency();
+        final ListObjectsV2Result result = new ListObjectsV2Result();
+        result.setBucketName(request.getBucketName());
+        result.setPrefix(request.getPrefix());
+        final int maxKeys = request.getMaxKeys() == null ? 1000 : request.getMaxKeys();
+        int count = 0;
+        for (final Map.Entry<String, StoredObject> entry : entriesWithPrefix(request.getBucketName(), request.getPrefix())) {
+            if (request.getContinuationToken() != null && entry.getKey().compareTo(request.getContinuationToken()) <= 0) {
+                continue;
+            }
+            if (count == maxKeys) {
+                result.setTruncated(true);
+                result.setNextContinuationToken(result.getObjectSummaries().get(count - 1).getKey());
+                break;
+            }
+            result.getObjectSummaries().add(summary(request.getBucketName(), entry));
+            count++;
+        }
+        result.setKeyCount(count);
+        return result;
+    }
+
+    @Override
+    public URL getUrl(final String bucketName, final String key) {
+        try {
+            return new URL(String.format("https://%s.s3.local/%s", bucketName, key));
+        } catch (final MalformedURLException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private ConcurrentSkipListMap<String, StoredObject> bucket(final String bucketName) {
+        return buckets.computeIfAbsent(bucketName, name -> new ConcurrentSkipListMap<>());
+    }
+
+    private StoredObject find(final String bucketName, final String key) {
+        final StoredObject stored = bucket(bucketName).get(key);
+        if (stored == null) {
+            final AmazonS3Exception exception = new AmazonS3Exception("The specified key does not exist.");
+            exception.setStatusCode(404);
+            exception.setErrorCode("NoSuchKey");
+            throw exception;
+        }
+        return stored;
+    }
+
+    private Iterable<Map.Entry<String, StoredObject>> entriesWithPrefix(final String bucketName, final String prefix) {
+        final String from = prefix == null ? "" : prefix;
+        return bucket(bucketName).tailMap(from, true).entrySet().stream()
+                .takeWhile(entry -> entry.getKey().startsWith(from))
+                .toList();
+    }
+
+    private String commonPrefix(final String key, final String prefix, final String delimiter) {
+        if (delimiter == null) {
+            return null;
+        }
+        final int start = prefix == null ? 0 : prefix.length();
+        final int index = key.indexOf(delimiter, start);
+        return index < 0 ? null : key.substring(0, index + delimiter.length());
+    }
+
+    private S3ObjectSummary summary(final String bucketName, final Map.Entry<String, StoredObject> entry) {
+        final S3ObjectSummary summary = new S3ObjectSummary();
+        summary.setBucketName(bucketName);
+        summary.setKey(entry.getKey());
+        summary.setSize(entry.getValue().data().length);
+        return summary;
+    }
+
+    private void awaitLatency() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        long millis = latency.baseMs() + (latency.jitterMs() > 0 ? random.nextLong(latency.jitterMs() + 1) : 0);
+        if (random.nextDouble() < latency.tailProbability()) {
+            millis += latency.tailMs();
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record StoredObject(byte[] data, ObjectMetadata metadata) {
+    }
+}
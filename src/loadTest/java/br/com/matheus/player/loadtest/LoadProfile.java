@@ -0,0 +1,73 @@
+package br.com.matheus.player.loadtest;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Load test settings, read from {@code loadtest.*} system properties so a run can be tuned from
+ * the command line, e.g. {@code ./gradlew loadTest -Dloadtest.rate=400 -Dloadtest.s3.latency-ms=40}.
+ */
+public record LoadProfile(int ratePerSecond, Duration warmup, Duration duration, int albums, int tracksPerAlbum,
+                          Map<Operation, Integer> mix, Latency latency) {
+
+    public enum Operation {
+        FILES("files"),
+        FOLDERS("folders"),
+        UPLOADS("uploads");
+
+        private final String key;
+
+        Operation(final String key) {
+            this.key = key;
+        }
+
+        public String key() {
+            return key;
+        }
+    }
+
+    public record Latency(long baseMs, long jitterMs, double tailProbability, long tailMs) {
+    }
+
+    public static LoadProfile fromSystemProperties() {
+        final Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        mix.put(Operation.FILES, intProperty("loadtest.mix.files", 70));
+        mix.put(Operation.FOLDERS, intProperty("loadtest.mix.folders", 25));
+        mix.put(Operation.UPLOADS, intProperty("loadtest.mix.uploads", 5));
+
+        final Latency latency = new Latency(
+                intProperty("loadtest.s3.latency-ms", 20),
+                intProperty("loadtest.s3.jitter-ms", 10),
+                Double.parseDouble(System.getProperty("loadtest.s3.tail-probability", "0.01")),
+                intProperty("loadtest.s3.tail-ms", 200));
+
+        return new LoadProfile(
+                intProperty("loadtest.rate", 200),
+                Duration.ofSeconds(intProperty("loadtest.warmup-seconds", 10)),
+                Duration.ofSeconds(intProperty("loadtest.duration-seconds", 60)),
+                intProperty("loadtest.albums", 200),
+                intProperty("loadtest.tracks-per-album", 12),
+                mix,
+                latency);
+    }
+
+    public Operation pick(final int roll) {
+        int remaining = roll;
+        for (final Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            remaining -= entry.getValue();
+            if (remaining < 0) {
+                return entry.getKey();
+            }
+        }
+        return Operation.FILES;
+    }
+
+    public int totalWeight() {
+        return mix.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    private static int intProperty(final String name, final int defaultValue) {
+        return Integer.parseInt(System.getProperty(name, String.valueOf(defaultValue)));
+    }
+}
@@ -0,0 +1,85 @@
+package br.com.matheus.player.loadtest;
+
+import br.com.matheus.player.loadtest.LoadProfile.Operation;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiFunction;
+
+/**
+ * Sends requests at a fixed arrival rate regardless of how fast responses come back (open model),
+ * so a slow server builds up concurrency the way real traffic would instead of throttling the test.
+ */
+public class OpenModelLoadGenerator {
+
+    private final LoadProfile profile;
+    private final BiFunction<Operation, Long, HttpRequest> requests;
+
+    public OpenModelLoadGenerator(final LoadProfile profile, final BiFunction<Operation, Long, HttpRequest> requests) {
+        this.profile = profile;
+        this.requests = requests;
+    }
+
+    public Map<Operation, OperationStats> run() throws InterruptedException, TimeoutException {
+        final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+        for (final Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+        final ExecutorService clientExecutor = Executors.newCachedThreadPool();
+        final HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(clientExecutor)
+                .build();
+        try {
+            final Random random = new Random(42);
+            final int totalWeight = profile.totalWeight();
+            final long intervalNanos = TimeUnit.SECONDS.toNanos(1) / profile.ratePerSecond();
+            final long start = System.nanoTime();
+            final long measureFrom = start + profile.warmup().toNanos();
+            final long end = measureFrom + profile.duration().toNanos();
+            final List<CompletableFuture<?>> pending = new ArrayList<>();
+
+            for (long sequence = 0; ; sequence++) {
+                final long intendedStart = start + sequence * intervalNanos;
+                if (intendedStart >= end) {
+                    break;
+                }
+                while (System.nanoTime() < intendedStart) {
+                    LockSupport.parkNanos(intendedStart - System.nanoTime());
+                }
+                final Operation operation = profile.pick(random.nextInt(totalWeight));
+                final HttpRequest request = requests.apply(operation, sequence);
+                pending.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                        .whenComplete((response, error) -> {
+                            if (intendedStart >= measureFrom) {
+                                final long now = System.nanoTime();
+                                final boolean success = error == null && response.statusCode() < 300;
+                                stats.get(operation).record(now - intendedStart, success, now <= end);
+                            }
+                        }));
+            }
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new))
+                    .exceptionally(error -> null)
+                    .get(1, TimeUnit.MINUTES);
+            return stats;
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            clientExecutor.shutdownNow();
+        }
+    }
+}
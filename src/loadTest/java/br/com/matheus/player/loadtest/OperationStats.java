@@ -0,0 +1,45 @@
+package br.com.matheus.player.loadtest;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+
+/**
+ * Latencies of one operation, in microseconds, measured from the time the request was scheduled
+ * to be sent so a stalled server cannot hide queueing delay (coordinated omission). Throughput
+ * only counts successful responses that arrived before the measurement window closed.
+ */
+public class OperationStats {
+
+    private final ConcurrentHistogram latencies = new ConcurrentHistogram(3);
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder completedInWindow = new LongAdder();
+
+    public void record(final long latencyNanos, final boolean success, final boolean inWindow) {
+        latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        if (!success) {
+            errors.increment();
+        } else if (inWindow) {
+            completedInWindow.increment();
+        }
+    }
+
+    /**
+     * Requests scheduled inside the measurement window, whatever their outcome: the offered load.
+     */
+    public long count() {
+        return latencies.getTotalCount();
+    }
+
+    public long completed() {
+        return completedInWindow.sum();
+    }
+
+    public long errors() {
+        return errors.sum();
+    }
+
+    public double percentileMillis(final double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
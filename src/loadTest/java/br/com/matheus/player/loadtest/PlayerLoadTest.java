@@ -0,0 +1,223 @@
+package br.com.matheus.player.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.com.matheus.player.dto.ArchiveDTO;
+import br.com.matheus.player.loadtest.LoadProfile.Operation;
+import br.com.matheus.player.utils.JsonConverter;
+import br.com.matheus.player.utils.StoragePaths;
+import com.amazonaws.services.s3.AmazonS3;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * End-to-end load test: starts the application against {@link InMemoryAmazonS3}, replays a mix of
+ * album reads, folder listings and uploads at a fixed rate and fails when a latency percentile,
+ * the throughput or the error rate is worse than {@code loadtest-baselines.properties}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"api.secret=" + PlayerLoadTest.API_KEY, "aws.s3.bucket=" + PlayerLoadTest.BUCKET,
+                "spring.main.allow-bean-definition-overriding=true"})
+class PlayerLoadTest {
+
+    static final String API_KEY = "loadtest";
+    static final String BUCKET = "loadtest";
+
+    private static final LoadProfile PROFILE = LoadProfile.fromSystemProperties();
+    private static final InMemoryAmazonS3 S3 = new InMemoryAmazonS3(PROFILE.latency());
+    private static final double[] PERCENTILES = {50.0, 99.0, 99.9};
+    private static final String[] PERCENTILE_KEYS = {"p50", "p99", "p999"};
+    private static final int UPLOAD_FOLDERS = 50;
+    private static final String BOUNDARY = "loadtest-boundary";
+
+    /**
+     * Replaces both clients from {@code S3Configuration}, the bean names must match to override them.
+     */
+    @TestConfiguration
+    static class InMemoryS3Configuration {
+
+        @Bean
+        @Primary
+        AmazonS3 s3client() {
+            return S3;
+        }
+
+        @Bean
+        AmazonS3 s3ReadClient() {
+            return S3;
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JsonConverter jsonConverter;
+
+    @Test
+    void sustainsTargetRateWithinBaselines() throws Exception {
+        seedAlbums();
+        final Map<Operation, OperationStats> stats = new OpenModelLoadGenerator(PROFILE, this::buildRequest).run();
+
+        final Properties baselines = loadBaselines();
+        final Properties results = new Properties();
+        final List<String> failures = new ArrayList<>();
+        final double seconds = PROFILE.duration().toMillis() / 1000.0;
+        long offered = 0;
+        long completed = 0;
+        long errors = 0;
+
+        for (final Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            final String key = entry.getKey().key();
+            final OperationStats operationStats = entry.getValue();
+            offered += operationStats.count();
+            completed += operationStats.completed();
+            errors += operationStats.errors();
+            final StringBuilder line = new StringBuilder(String.format("%-8s %8d req %8.1f req/s %8.1f ok/s %6d errors",
+                    key, operationStats.count(), operationStats.count() / seconds, operationStats.completed() / seconds,
+                    operationStats.errors()));
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                final String name = key + "." + PERCENTILE_KEYS[i];
+                final double measured = operationStats.percentileMillis(PERCENTILES[i]);
+                line.append(String.format(" %s=%.1fms", PERCENTILE_KEYS[i], measured));
+                results.setProperty(name, String.format("%.1f", measured));
+                final String baseline = baselines.getProperty(name);
+                if (operationStats.count() > 0 && baseline != null && measured > Double.parseDouble(baseline)) {
+                    failures.add(String.format("%s was %.1f ms, baseline is %s ms", name, measured, baseline));
+                }
+            }
+            System.out.println(line);
+        }
+
+        final double throughput = completed / seconds;
+        final double minThroughput = PROFILE.ratePerSecond() * Double.parseDouble(baselines.getProperty("throughput.min-ratio"));
+        System.out.printf("total    %8d req %8.1f req/s %8.1f ok/s %6d errors%n",
+                offered, offered / seconds, throughput, errors);
+        results.setProperty("offered", String.format("%.1f", offered / seconds));
+        results.setProperty("throughput", String.format("%.1f", throughput));
+        if (throughput < minThroughput) {
+            failures.add(String.format("throughput was %.1f req/s, expected at least %.1f", throughput, minThroughput));
+        }
+        final double maxErrors = offered * Double.parseDouble(baselines.getProperty("errors.max-ratio"));
+        if (errors > maxErrors) {
+            failures.add(String.format("%d requests failed, at most %.0f allowed", errors, maxErrors));
+        }
+        writeResults(results);
+
+        assertTrue(failures.isEmpty(), String.join("\n", failures));
+    }
+
+    private void seedAlbums() {
+        final byte[] track = syntheticMp3(500);
+        for (int album = 0; album < PROFILE.albums(); album++) {
+            final String folder = albumFolder(album);
+            final List<ArchiveDTO> archives = new ArrayList<>();
+            for (int number = 0; number < PROFILE.tracksPerAlbum(); number++) {
+                final String fileName = String.format("track-%02d.mp3", number);
+                final String path = StoragePaths.buildPathArchive(folder, fileName);
+                S3.seed(BUCKET, path, track, "audio/mpeg");
+                archives.add(new ArchiveDTO(fileName, S3.getUrl(BUCKET, path).toString(), "audio/mpeg", 13061.0));
+            }
+            S3.seed(BUCKET, StoragePaths.buildContentFile(folder),
+                    jsonConverter.toJson(archives).getBytes(StandardCharsets.UTF_8), "application/json");
+        }
+    }
+
+    private HttpRequest buildRequest(final Operation operation, final long sequence) {
+        final HttpRequest.Builder builder = HttpRequest.newBuilder().header("x-api-key", API_KEY);
+        return switch (operation) {
+            case FILES -> builder.uri(uri("/api/files"))
+                    .header("Content-Type", "application/json")
+                    .method("GET", HttpRequest.BodyPublishers.ofString(
+                            String.format("{\"folder\":\"%s\"}", albumFolder((int) (sequence % PROFILE.albums())))))
+                    .build();
+            case FOLDERS -> builder.uri(uri("/api/files/folders")).GET().build();
+            case UPLOADS -> builder.uri(uri("/api/files/uploads"))
+                    .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(uploadBody(sequence)))
+                    .build();
+        };
+    }
+
+    private byte[] uploadBody(final long sequence) {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final String path = String.format("uploads-%02d", sequence % UPLOAD_FOLDERS);
+        write(body, "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"path\"\r\n\r\n" + path + "\r\n");
+        write(body, "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"upload-" + sequence + ".mp3\"\r\n"
+                + "Content-Type: audio/mpeg\r\n\r\n");
+        body.writeBytes(syntheticMp3(200));
+        write(body, "\r\n--" + BOUNDARY + "--\r\n");
+        return body.toByteArray();
+    }
+
+    /**
+     * A CBR 128 kbps, 44.1 kHz MPEG-1 Layer III stream of silent frames, enough for the MP3 parser.
+     */
+    private static byte[] syntheticMp3(final int frames) {
+        final byte[] frame = new byte[417];
+        frame[0] = (byte) 0xFF;
+        frame[1] = (byte) 0xFB;
+        frame[2] = (byte) 0x90;
+        frame[3] = (byte) 0x64;
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream(frame.length * frames);
+        for (int i = 0; i < frames; i++) {
+            stream.writeBytes(frame);
+        }
+        return stream.toByteArray();
+    }
+
+    private static String albumFolder(final int album) {
+        return String.format("album-%04d", album);
+    }
+
+    private URI uri(final String path) {
+        return URI.create(String.format("http://localhost:%d%s", port, path));
+    }
+
+    private static void write(final OutputStream stream, final String text) {
+        try {
+            stream.write(text.getBytes(StandardCharsets.UTF_8));
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Properties loadBaselines() throws IOException {
+        final Properties baselines = new Properties();
+        final String location = System.getProperty("loadtest.baselines");
+        try (InputStream input = location != null
+                ? Files.newInputStream(Path.of(location))
+                : PlayerLoadTest.class.getResourceAsStream("/loadtest-baselines.properties")) {
+            baselines.load(input);
+        }
+        return baselines;
+    }
+
+    private static void writeResults(final Properties results) throws IOException {
+        final Path path = Path.of(System.getProperty("loadtest.results", "build/loadtest/results.properties"));
+        Files.createDirectories(path.getParent());
+        try (OutputStream output = Files.newOutputStream(path)) {
+            results.store(output, "Measured latencies in milliseconds, same keys as loadtest-baselines.properties");
+        }
+    }
+}
@@ -1,13 +1,21 @@
 package br.com.matheus.player.configuration;
 
+import br.com.matheus.player.repository.S3ReplicaRouter;
+import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSStaticCredentialsProvider;
 import com.amazonaws.auth.BasicAWSCredentials;
 import com.amazonaws.regions.Regions;
+import com.amazonaws.retry.PredefinedRetryPolicies;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 
 @Configuration
 public class S3Configuration {
@@ -21,15 +29,79 @@ public class S3Configuration {
     @Value("${aws.s3.region}")
     private String region;
 
+    @Value("${aws.s3.bucket}")
+    private String bucketName;
+
+    @Value("${aws.s3.replicas:}")
+    private String replicas;
+
+    @Value("${aws.s3.replica.ewma-alpha:0.2}")
+    private double ewmaAlpha;
+
+    @Value("${aws.s3.replica.failure-threshold:3}")
+    private int failureThreshold;
+
+    @Value("${aws.s3.replica.cooldown-ms:30000}")
+    private long cooldownMs;
+
+    @Value("${aws.s3.read.timeout-ms:3000}")
+    private int readTimeoutMs;
+
     @Bean
+    @Primary
     public AmazonS3 s3client() {
+        return buildClient(region, new ClientConfiguration());
+    }
+
+    /**
+     * Client for the reads wrapped by {@code S3ReadPolicy}, which already retries and hedges them.
+     * SDK retries on top of that would multiply the requests sent during a brownout, and a request
+     * the policy gave up on must not hold one of its threads past the attempt timeout.
+     */
+    @Bean
+    public AmazonS3 s3ReadClient() {
+        return buildClient(region, readClientConfiguration());
+    }
+
+    /**
+     * Replicas are listed as {@code bucket@region}, comma separated, e.g.
+     * {@code release-play-us@us-east-1,release-play-eu@eu-west-1}.
+     */
+    @Bean
+    public S3ReplicaRouter s3ReplicaRouter(@Qualifier("s3ReadClient") final AmazonS3 amazonS3,
+                                           final MeterRegistry meterRegistry) {
+        final List<S3ReplicaRouter.Endpoint> endpoints = new ArrayList<>();
+        for (final String replica : replicas.split(",")) {
+            if (replica.isBlank()) {
+                continue;
+            }
+            final String[] parts = replica.trim().split("@");
+            if (parts.length != 2 || parts[0].isBlank() || parts[1].isBlank()) {
+                throw new IllegalArgumentException(String.format("Invalid replica, expected bucket@region: %s", replica));
+            }
+            endpoints.add(new S3ReplicaRouter.Endpoint(replica.trim(), parts[0], buildClient(parts[1], readClientConfiguration())));
+        }
+        final S3ReplicaRouter.Endpoint primary =
+                new S3ReplicaRouter.Endpoint(String.format("%s@%s", bucketName, region), bucketName, amazonS3);
+
+        return new S3ReplicaRouter(primary, endpoints, ewmaAlpha, failureThreshold, cooldownMs, meterRegistry);
+    }
+
+    private AmazonS3 buildClient(final String clientRegion, final ClientConfiguration clientConfiguration) {
         final BasicAWSCredentials awsCredentials = new BasicAWSCredentials(awsId, awsKey);
         final AmazonS3 amazonS3 = AmazonS3ClientBuilder.standard()
-                .withRegion(Regions.fromName(region))
+                .withRegion(Regions.fromName(clientRegion))
+                .withClientConfiguration(clientConfiguration)
                 .withCredentials(new AWSStaticCredentialsProvider(awsCredentials))
                 .build();
 
         return amazonS3;
     }
 
+    private ClientConfiguration readClientConfiguration() {
+        return new ClientConfiguration()
+                .withRetryPolicy(PredefinedRetryPolicies.NO_RETRY_POLICY)
+                .withClientExecutionTimeout(readTimeoutMs);
+    }
+
 }
@@ -1,17 +1,31 @@
 package br.com.matheus.player.controller;
 
 import br.com.matheus.player.dto.AlbumDTO;
+import br.com.matheus.player.dto.ArchiveDTO;
+import br.com.matheus.player.dto.MoveFolderDTO;
 import br.com.matheus.player.dto.PathDTO;
+import br.com.matheus.player.dto.ReconciliationReportDTO;
+import br.com.matheus.player.dto.UploadJobDTO;
 import br.com.matheus.player.service.PlayerService;
+import br.com.matheus.player.service.ReconciliationService;
+import br.com.matheus.player.service.UploadSpoolService;
 import java.util.List;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @CrossOrigin("*")
 @RequestMapping(value = "/api/files", produces = {"application/json"})
@@ -19,9 +33,14 @@ import org.springframework.web.multipart.MultipartFile;
 public class PlayerController {
 
     private final PlayerService playerService;
+    private final ReconciliationService reconciliationService;
+    private final UploadSpoolService uploadSpoolService;
 
-    public PlayerController(final PlayerService playerService) {
+    public PlayerController(final PlayerService playerService, final ReconciliationService reconciliationService,
+                            final UploadSpoolService uploadSpoolService) {
         this.playerService = playerService;
+        this.reconciliationService = reconciliationService;
+        this.uploadSpoolService = uploadSpoolService;
     }
 
     @GetMapping
@@ -34,10 +53,56 @@ public class PlayerController {
         return playerService.getAllFolders();
     }
 
+    @GetMapping(value = "/album.zip", produces = {"application/zip"})
+    public ResponseEntity<StreamingResponseBody> downloadAlbum(@RequestParam("folder") final String folder) {
+        final List<ArchiveDTO> archives = playerService.getArchivesToDownload(folder);
+        final String fileName = folder.substring(folder.lastIndexOf('/') + 1) + ".zip";
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(outputStream -> playerService.writeAlbumZip(folder, archives, outputStream));
+    }
+
+    @DeleteMapping
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void deleteFolder(@RequestParam("folder") final String folder) {
+        playerService.deleteFolder(folder);
+    }
+
+    @PostMapping("/move")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void moveFolder(@RequestBody final MoveFolderDTO moveFolderDTO) {
+        playerService.moveFolder(moveFolderDTO.getSource(), moveFolderDTO.getTarget());
+    }
+
+    @PostMapping("/reconciliations")
+    public ResponseEntity<Void> reconcile() {
+        reconciliationService.start();
+        return ResponseEntity.accepted()
+                .header(HttpHeaders.LOCATION, "/api/files/reconciliations/latest")
+                .build();
+    }
+
+    @GetMapping("/reconciliations/latest")
+    public ReconciliationReportDTO getLastReconciliation() {
+        return reconciliationService.getLastReport();
+    }
+
     @PostMapping("/uploads")
-    public void upload(@RequestParam("file") final MultipartFile file,
-                       @RequestParam("path") final String path) {
+    public ResponseEntity<UploadJobDTO> upload(@RequestParam("file") final MultipartFile file,
+                                               @RequestParam("path") final String path) {
+        if (uploadSpoolService.isEnabled()) {
+            final UploadJobDTO job = uploadSpoolService.enqueue(file, path);
+            return ResponseEntity.accepted()
+                    .header(HttpHeaders.LOCATION, "/api/files/uploads/" + job.getId())
+                    .body(job);
+        }
         playerService.put(file,path);
+        return ResponseEntity.ok().build();
+    }
+
+    @GetMapping("/uploads/{jobId}")
+    public UploadJobDTO getUploadJob(@PathVariable("jobId") final String jobId) {
+        return uploadSpoolService.getJob(jobId);
     }
 
 }
@@ -3,6 +3,7 @@ package br.com.matheus.player.controller.exception;
 import br.com.matheus.player.exception.FileConverterException;
 import br.com.matheus.player.exception.FileUploadException;
 import br.com.matheus.player.exception.ObjectNotFoundException;
+import br.com.matheus.player.exception.OperationInProgressException;
 import jakarta.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
 import org.springframework.http.HttpStatus;
@@ -36,4 +37,10 @@ public class ControllerExceptionHandler {
         StandardError standardError = new StandardError(HttpStatus.NOT_FOUND.value(), objectNotFoundException.getMessage(), LocalDateTime.now().toString());
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(standardError);
     }
+
+    @ExceptionHandler(OperationInProgressException.class)
+    public ResponseEntity<StandardError> operationInProgressException(final OperationInProgressException operationInProgressException, final HttpServletRequest request) {
+        StandardError standardError = new StandardError(HttpStatus.CONFLICT.value(), operationInProgressException.getMessage(), LocalDateTime.now().toString());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(standardError);
+    }
 }
@@ -0,0 +1,33 @@
+package br.com.matheus.player.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class MoveFolderDTO {
+
+  private final String source;
+  private final String target;
+
+  @JsonCreator
+  public MoveFolderDTO(@JsonProperty("source") final String source,
+                       @JsonProperty("target") final String target) {
+    this.source = source;
+    this.target = target;
+  }
+
+  public String getSource() {
+    return source;
+  }
+
+  public String getTarget() {
+    return target;
+  }
+
+  @Override
+  public String toString() {
+    return "MoveFolderDTO{" +
+        "source='" + source + '\'' +
+        ", target='" + target + '\'' +
+        '}';
+  }
+}
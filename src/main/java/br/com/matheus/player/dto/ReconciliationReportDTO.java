@@ -0,0 +1,82 @@
+package br.com.matheus.player.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class ReconciliationReportDTO {
+
+    private final int foldersScanned;
+    private final int foldersFailed;
+    private final int contentFilesRewritten;
+    private final int contentFilesDeleted;
+    private final int archivesAdded;
+    private final int archivesRemoved;
+    private final long elapsedMillis;
+    private final String finishedAt;
+
+    @JsonCreator
+    public ReconciliationReportDTO(
+        @JsonProperty(value = "foldersScanned") final int foldersScanned,
+        @JsonProperty(value = "foldersFailed") final int foldersFailed,
+        @JsonProperty(value = "contentFilesRewritten") final int contentFilesRewritten,
+        @JsonProperty(value = "contentFilesDeleted") final int contentFilesDeleted,
+        @JsonProperty(value = "archivesAdded") final int archivesAdded,
+        @JsonProperty(value = "archivesRemoved") final int archivesRemoved,
+        @JsonProperty(value = "elapsedMillis") final long elapsedMillis,
+        @JsonProperty(value = "finishedAt") final String finishedAt) {
+        this.foldersScanned = foldersScanned;
+        this.foldersFailed = foldersFailed;
+        this.contentFilesRewritten = contentFilesRewritten;
+        this.contentFilesDeleted = contentFilesDeleted;
+        this.archivesAdded = archivesAdded;
+        this.archivesRemoved = archivesRemoved;
+        this.elapsedMillis = elapsedMillis;
+        this.finishedAt = finishedAt;
+    }
+
+    public int getFoldersScanned() {
+        return foldersScanned;
+    }
+
+    public int getFoldersFailed() {
+        return foldersFailed;
+    }
+
+    public int getContentFilesRewritten() {
+        return contentFilesRewritten;
+    }
+
+    public int getContentFilesDeleted() {
+        return contentFilesDeleted;
+    }
+
+    public int getArchivesAdded() {
+        return archivesAdded;
+    }
+
+    public int getArchivesRemoved() {
+        return archivesRemoved;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public String getFinishedAt() {
+        return finishedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "ReconciliationReportDTO{" +
+                "foldersScanned=" + foldersScanned +
+                ", foldersFailed=" + foldersFailed +
+                ", contentFilesRewritten=" + contentFilesRewritten +
+                ", contentFilesDeleted=" + contentFilesDeleted +
+                ", archivesAdded=" + archivesAdded +
+                ", archivesRemoved=" + archivesRemoved +
+                ", elapsedMillis=" + elapsedMillis +
+                ", finishedAt='" + finishedAt + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,99 @@
+package br.com.matheus.player.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDateTime;
+
+public class UploadJobDTO {
+
+    private final String id;
+    private final String folder;
+    private final String fileName;
+    private final String contentType;
+    private final long size;
+    private final UploadJobStatus status;
+    private final int attempts;
+    private final String lastError;
+    private final String createdAt;
+    private final String updatedAt;
+
+    @JsonCreator
+    public UploadJobDTO(
+        @JsonProperty(value = "id") final String id,
+        @JsonProperty(value = "folder") final String folder,
+        @JsonProperty(value = "fileName") final String fileName,
+        @JsonProperty(value = "contentType") final String contentType,
+        @JsonProperty(value = "size") final long size,
+        @JsonProperty(value = "status") final UploadJobStatus status,
+        @JsonProperty(value = "attempts") final int attempts,
+        @JsonProperty(value = "lastError") final String lastError,
+        @JsonProperty(value = "createdAt") final String createdAt,
+        @JsonProperty(value = "updatedAt") final String updatedAt) {
+        this.id = id;
+        this.folder = folder;
+        this.fileName = fileName;
+        this.contentType = contentType;
+        this.size = size;
+        this.status = status;
+        this.attempts = attempts;
+        this.lastError = lastError;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    public UploadJobDTO withStatus(final UploadJobStatus status, final int attempts, final String lastError) {
+        return new UploadJobDTO(id, folder, fileName, contentType, size, status, attempts, lastError,
+            createdAt, LocalDateTime.now().toString());
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFolder() {
+        return folder;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public UploadJobStatus getStatus() {
+        return status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public String getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getUpdatedAt() {
+        return updatedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "UploadJobDTO{" +
+                "id='" + id + '\'' +
+                ", folder='" + folder + '\'' +
+                ", fileName='" + fileName + '\'' +
+                ", status=" + status +
+                ", attempts=" + attempts +
+                '}';
+    }
+}
@@ -0,0 +1,8 @@
+package br.com.matheus.player.dto;
+
+public enum UploadJobStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
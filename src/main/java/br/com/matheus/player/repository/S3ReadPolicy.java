@@ -0,0 +1,369 @@
+package br.com.matheus.player.repository;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.SdkClientException;
+import jakarta.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Read policy for small S3 objects such as manifests and listings. A read is hedged with a second
+ * request when the first is slower than the observed p95, retried with jittered backoff while the
+ * retry budget allows, and served from the last good copy when the circuit breaker is open.
+ */
+@Component
+public class S3ReadPolicy {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(S3ReadPolicy.class);
+
+    private static final long COLD_HEDGE_DELAY_MS = 100;
+
+    private final boolean hedgeEnabled;
+    private final long minHedgeDelayNanos;
+    private final long attemptTimeoutNanos;
+    private final int maxAttempts;
+    private final long retryBaseDelayMs;
+    private final long retryMaxDelayMs;
+    private final ExecutorService readExecutor;
+    private final LatencyWindow latencies = new LatencyWindow(512);
+    private final RetryBudget retryBudget;
+    private final CircuitBreaker circuitBreaker;
+    private final Map<String, Object> lastGoodValues;
+
+    public S3ReadPolicy(@Value("${aws.s3.read.hedge.enabled:true}") final boolean hedgeEnabled,
+                        @Value("${aws.s3.read.hedge.min-delay-ms:10}") final long minHedgeDelayMs,
+                        @Value("${aws.s3.read.timeout-ms:3000}") final long attemptTimeoutMs,
+                        @Value("${aws.s3.read.retry.max-attempts:3}") final int maxAttempts,
+                        @Value("${aws.s3.read.retry.base-delay-ms:50}") final long retryBaseDelayMs,
+                        @Value("${aws.s3.read.retry.max-delay-ms:1000}") final long retryMaxDelayMs,
+                        @Value("${aws.s3.read.retry.budget-ratio:0.1}") final double retryBudgetRatio,
+                        @Value("${aws.s3.read.breaker.failure-threshold:5}") final int breakerFailureThreshold,
+                        @Value("${aws.s3.read.breaker.open-ms:10000}") final long breakerOpenMs,
+                        @Value("${aws.s3.read.cache.max-entries:1000}") final int cacheMaxEntries,
+                        @Value("${aws.s3.read.threads:16}") final int threads) {
+        this.hedgeEnabled = hedgeEnabled;
+        this.minHedgeDelayNanos = TimeUnit.MILLISECONDS.toNanos(minHedgeDelayMs);
+        this.attemptTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(attemptTimeoutMs);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBaseDelayMs = retryBaseDelayMs;
+        this.retryMaxDelayMs = retryMaxDelayMs;
+        this.readExecutor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("s3-read-"));
+        this.retryBudget = new RetryBudget(retryBudgetRatio, 10);
+        this.circuitBreaker = new CircuitBreaker(breakerFailureThreshold, TimeUnit.MILLISECONDS.toNanos(breakerOpenMs));
+        this.lastGoodValues = Collections.synchronizedMap(new LinkedHashMap<String, Object>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Object> eldest) {
+                return size() > cacheMaxEntries;
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        readExecutor.shutdownNow();
+    }
+
+    public <T> T read(final String key, final Supplier<T> call) {
+        if (!circuitBreaker.allowRequest()) {
+            return lastGoodValue(key, new SdkClientException("S3 reads are suspended by the circuit breaker"));
+        }
+        RuntimeException failure = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                final T value = hedged(call);
+                circuitBreaker.onSuccess();
+                retryBudget.onSuccess();
+                lastGoodValues.put(key, value);
+                return value;
+            } catch (final RuntimeException e) {
+                if (!isRetryable(e)) {
+                    circuitBreaker.onSuccess();
+                    throw e;
+                }
+                failure = e;
+                circuitBreaker.onFailure();
+                if (attempt == maxAttempts || !circuitBreaker.allowRequest() || !retryBudget.tryAcquire()) {
+                    break;
+                }
+                if (!sleep(backoffMillis(attempt))) {
+                    break;
+                }
+            }
+        }
+        return lastGoodValue(key, failure);
+    }
+
+    /**
+     * Drops the cached copy of {@code key} and of every cached listing whose prefix contains it,
+     * so a degraded S3 never serves data older than our own writes.
+     */
+    public void invalidate(final String key) {
+        synchronized (lastGoodValues) {
+            lastGoodValues.keySet().removeIf(cached -> cached.equals(key)
+                    || (cached.endsWith("/") && key.startsWith(cached)));
+        }
+    }
+
+    /**
+     * The hedge delay and the attempt timeout count from when the first request starts running, time
+     * spent queued behind other reads in {@code readExecutor} is not held against S3. Waiting for a
+     * thread is bounded by the attempt timeout too, so a saturated pool fails over to the stale copy.
+     */
+    private <T> T hedged(final Supplier<T> call) {
+        final Attempt<T> first = submit(call);
+        try {
+            final long startedAt = first.awaitStart(attemptTimeoutNanos);
+            final long deadline = startedAt + attemptTimeoutNanos;
+            if (!hedgeEnabled) {
+                return await(first.result(), deadline);
+            }
+            try {
+                final long hedgeAt = Math.min(startedAt + hedgeDelayNanos(), deadline);
+                return first.result().get(Math.max(0, hedgeAt - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (final TimeoutException e) {
+                final Attempt<T> second = submit(call);
+                try {
+                    return await(firstSuccessful(first.result(), second.result()), deadline);
+                } finally {
+                    second.cancel();
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SdkClientException("Interrupted while reading from S3", e);
+            } catch (final ExecutionException e) {
+                throw unwrap(e);
+            }
+        } finally {
+            // an attempt still queued is skipped, a running one is ended by the read client's timeout
+            first.cancel();
+        }
+    }
+
+    private <T> Attempt<T> submit(final Supplier<T> call) {
+        final CompletableFuture<Long> started = new CompletableFuture<>();
+        final CompletableFuture<T> result = CompletableFuture.supplyAsync(() -> {
+            final long start = System.nanoTime();
+            started.complete(start);
+            final T value = call.get();
+            latencies.record(System.nanoTime() - start);
+            return value;
+        }, readExecutor);
+        return new Attempt<>(started, result);
+    }
+
+    private <T> CompletableFuture<T> firstSuccessful(final CompletableFuture<T> first, final CompletableFuture<T> second) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final AtomicInteger pending = new AtomicInteger(2);
+        first.whenComplete((value, error) -> complete(result, pending, value, error));
+        second.whenComplete((value, error) -> complete(result, pending, value, error));
+        return result;
+    }
+
+    private <T> void complete(final CompletableFuture<T> result, final AtomicInteger pending,
+                              final T value, final Throwable error) {
+        if (error == null) {
+            result.complete(value);
+        } else if (pending.decrementAndGet() == 0) {
+            result.completeExceptionally(error);
+        }
+    }
+
+    private <T> T await(final CompletableFuture<T> future, final long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (final TimeoutException e) {
+            throw new SdkClientException("S3 read timed out", e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SdkClientException("Interrupted while reading from S3", e);
+        } catch (final ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private RuntimeException unwrap(final ExecutionException e) {
+        Throwable cause = e.getCause();
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof RuntimeException runtimeException ? runtimeException : new RuntimeException(cause);
+    }
+
+    private long hedgeDelayNanos() {
+        final long p95 = latencies.percentile(0.95);
+        return Math.max(minHedgeDelayNanos, p95 < 0 ? TimeUnit.MILLISECONDS.toNanos(COLD_HEDGE_DELAY_MS) : p95);
+    }
+
+    private long backoffMillis(final int attempt) {
+        final long ceiling = Math.min(retryMaxDelayMs, retryBaseDelayMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private boolean sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean isRetryable(final RuntimeException e) {
+        if (e instanceof AmazonServiceException serviceException) {
+            return serviceException.getStatusCode() >= 500 || serviceException.getStatusCode() == 429;
+        }
+        return e instanceof SdkClientException;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T lastGoodValue(final String key, final RuntimeException failure) {
+        final Object value = lastGoodValues.get(key);
+        if (value == null) {
+            throw failure;
+        }
+        LOGGER.warn("Serving stale copy of {}: {}", key, failure.getMessage());
+        return (T) value;
+    }
+
+    private record Attempt<T>(CompletableFuture<Long> started, CompletableFuture<T> result) {
+
+        private long awaitStart(final long timeoutNanos) {
+            try {
+                return started.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (final TimeoutException e) {
+                throw new SdkClientException("No S3 read thread became available in time", e);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SdkClientException("Interrupted while reading from S3", e);
+            } catch (final ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        private void cancel() {
+            result.cancel(false);
+        }
+    }
+
+    private static final class LatencyWindow {
+
+        private static final int MIN_SAMPLES = 32;
+
+        private final long[] samples;
+        private int next;
+        private int count;
+        private long cachedPercentile = -1;
+        private int samplesSinceComputed;
+
+        private LatencyWindow(final int size) {
+            this.samples = new long[size];
+        }
+
+        private synchronized void record(final long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+            samplesSinceComputed++;
+        }
+
+        private synchronized long percentile(final double percentile) {
+            if (count < MIN_SAMPLES) {
+                return -1;
+            }
+            if (cachedPercentile < 0 || samplesSinceComputed >= MIN_SAMPLES) {
+                final long[] sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                cachedPercentile = sorted[(int) Math.min(count - 1, Math.ceil(percentile * count) - 1)];
+                samplesSinceComputed = 0;
+            }
+            return cachedPercentile;
+        }
+    }
+
+    private static final class RetryBudget {
+
+        private final double ratio;
+        private final double maxTokens;
+        private double tokens;
+
+        private RetryBudget(final double ratio, final double maxTokens) {
+            this.ratio = ratio;
+            this.maxTokens = maxTokens;
+            this.tokens = maxTokens;
+        }
+
+        private synchronized void onSuccess() {
+            tokens = Math.min(maxTokens, tokens + ratio);
+        }
+
+        private synchronized boolean tryAcquire() {
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+    }
+
+    private static final class CircuitBreaker {
+
+        private enum State { CLOSED, OPEN, HALF_OPEN }
+
+        private final int failureThreshold;
+        private final long openNanos;
+        private State state = State.CLOSED;
+        private int consecutiveFailures;
+        private long openedAt;
+        private boolean trialInFlight;
+
+        private CircuitBreaker(final int failureThreshold, final long openNanos) {
+            this.failureThreshold = failureThreshold;
+            this.openNanos = openNanos;
+        }
+
+        private synchronized boolean allowRequest() {
+            if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+                state = State.HALF_OPEN;
+                trialInFlight = false;
+            }
+            if (state == State.HALF_OPEN && !trialInFlight) {
+                trialInFlight = true;
+                return true;
+            }
+            return state == State.CLOSED;
+        }
+
+        private synchronized void onSuccess() {
+            state = State.CLOSED;
+            consecutiveFailures = 0;
+            trialInFlight = false;
+        }
+
+        private synchronized void onFailure() {
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+                state = State.OPEN;
+                openedAt = System.nanoTime();
+                trialInFlight = false;
+            }
+        }
+    }
+}
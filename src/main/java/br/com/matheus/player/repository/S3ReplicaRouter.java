@@ -0,0 +1,196 @@
+package br.com.matheus.player.repository;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Routes reads to the endpoint, primary bucket or one of its replicas, with the lowest latency
+ * EWMA. A replica that misses the object (replication lag) or fails sends the read to the primary,
+ * a miss the primary could serve counting against the replica as the time of both reads. A replica failing repeatedly is
+ * skipped until its cooldown expires, then the next read probes it. Writes never go here.
+ */
+public class S3ReplicaRouter {
+
+    private static final double EXPLORE_RATIO = 0.05;
+
+    private final Endpoint primary;
+    private final List<Endpoint> endpoints;
+    private final double alpha;
+    private final int failureThreshold;
+    private final long cooldownNanos;
+
+    public S3ReplicaRouter(final Endpoint primary, final List<Endpoint> replicas, final double alpha,
+                           final int failureThreshold, final long cooldownMs, final MeterRegistry meterRegistry) {
+        this.primary = primary;
+        final List<Endpoint> all = new ArrayList<>();
+        all.add(primary);
+        all.addAll(replicas);
+        this.endpoints = Collections.unmodifiableList(all);
+        this.alpha = alpha;
+        this.failureThreshold = failureThreshold;
+        this.cooldownNanos = TimeUnit.MILLISECONDS.toNanos(cooldownMs);
+        this.endpoints.forEach(endpoint -> endpoint.register(meterRegistry, endpoint == primary));
+    }
+
+    public <T> T read(final BiFunction<AmazonS3, String, T> call) {
+        final Endpoint endpoint = select();
+        endpoint.routed.increment();
+        if (endpoint == primary) {
+            return timed(primary, call);
+        }
+        final long start = System.nanoTime();
+        try {
+            return timed(endpoint, call);
+        } catch (final AmazonServiceException e) {
+            if (e.getStatusCode() != 404) {
+                endpoint.onFailure(failureThreshold);
+                endpoint.errors.increment();
+                return timed(primary, call);
+            }
+        } catch (final SdkClientException e) {
+            endpoint.onFailure(failureThreshold);
+            endpoint.errors.increment();
+            return timed(primary, call);
+        }
+        // a 404 from the primary too is a real absence, only replication lag counts against the replica
+        final T value = timed(primary, call);
+        // a miss is answered quickly but costs the caller the fallback too, charge the replica both
+        endpoint.misses.increment();
+        endpoint.recordLatency(System.nanoTime() - start, alpha);
+        return value;
+    }
+
+    private <T> T timed(final Endpoint endpoint, final BiFunction<AmazonS3, String, T> call) {
+        final long start = System.nanoTime();
+        final T value = call.apply(endpoint.client(), endpoint.bucketName());
+        endpoint.onResponse(System.nanoTime() - start, alpha);
+        return value;
+    }
+
+    private Endpoint select() {
+        if (endpoints.size() == 1) {
+            return primary;
+        }
+        final long now = System.nanoTime();
+        // the probe must actually be sent, a replica slower than the others would never be picked below
+        for (final Endpoint endpoint : endpoints) {
+            if (endpoint != primary && endpoint.tryClaimProbe(now, cooldownNanos)) {
+                return endpoint;
+            }
+        }
+        final List<Endpoint> candidates = endpoints.stream()
+                .filter(endpoint -> endpoint == primary || endpoint.isHealthy())
+                .toList();
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        // keep measuring the endpoints we are not using, their latency may have improved
+        if (candidates.size() > 1 && random.nextDouble() < EXPLORE_RATIO) {
+            return candidates.get(random.nextInt(candidates.size()));
+        }
+        Endpoint best = primary;
+        for (final Endpoint candidate : candidates) {
+            if (candidate.latencyNanos() < best.latencyNanos()) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    public static final class Endpoint {
+
+        private final String name;
+        private final String bucketName;
+        private final AmazonS3 client;
+        private double latencyNanos = -1;
+        private int consecutiveFailures;
+        private boolean unhealthy;
+        private long unhealthySince;
+        private Counter routed;
+        private Counter misses;
+        private Counter errors;
+
+        public Endpoint(final String name, final String bucketName, final AmazonS3 client) {
+            this.name = name;
+            this.bucketName = bucketName;
+            this.client = client;
+        }
+
+        private String bucketName() {
+            return bucketName;
+        }
+
+        private AmazonS3 client() {
+            return client;
+        }
+
+        /**
+         * Endpoints without a sample report zero so they are tried before the measured ones.
+         */
+        private synchronized double latencyNanos() {
+            return latencyNanos < 0 ? 0 : latencyNanos;
+        }
+
+        private synchronized void onResponse(final long nanos, final double alpha) {
+            recordLatency(nanos, alpha);
+            consecutiveFailures = 0;
+            unhealthy = false;
+        }
+
+        private synchronized void recordLatency(final long nanos, final double alpha) {
+            latencyNanos = latencyNanos < 0 ? nanos : alpha * nanos + (1 - alpha) * latencyNanos;
+        }
+
+        private synchronized void onFailure(final int failureThreshold) {
+            if (++consecutiveFailures >= failureThreshold) {
+                unhealthy = true;
+                unhealthySince = System.nanoTime();
+            }
+        }
+
+        private synchronized boolean tryClaimProbe(final long now, final long cooldownNanos) {
+            if (!unhealthy || now - unhealthySince < cooldownNanos) {
+                return false;
+            }
+            // one probe per cooldown, a new failure starts another one
+            unhealthySince = now;
+            return true;
+        }
+
+        private synchronized boolean isHealthy() {
+            return !unhealthy;
+        }
+
+        private void register(final MeterRegistry meterRegistry, final boolean isPrimary) {
+            final String role = isPrimary ? "primary" : "replica";
+            Gauge.builder("player.s3.endpoint.latency", this, endpoint -> endpoint.latencyNanos() / 1_000_000.0)
+                    .description("EWMA of the read latency in milliseconds")
+                    .tags("endpoint", name, "role", role)
+                    .register(meterRegistry);
+            Gauge.builder("player.s3.endpoint.healthy", this, endpoint -> endpoint.isHealthy() ? 1 : 0)
+                    .description("Whether reads may be routed to the endpoint")
+                    .tags("endpoint", name, "role", role)
+                    .register(meterRegistry);
+            routed = Counter.builder("player.s3.read.route")
+                    .description("Reads routed to the endpoint")
+                    .tags("endpoint", name, "role", role)
+                    .register(meterRegistry);
+            misses = Counter.builder("player.s3.read.fallback")
+                    .description("Reads sent to the primary after the endpoint missed or failed")
+                    .tags("endpoint", name, "reason", "miss")
+                    .register(meterRegistry);
+            errors = Counter.builder("player.s3.read.fallback")
+                    .description("Reads sent to the primary after the endpoint missed or failed")
+                    .tags("endpoint", name, "reason", "error")
+                    .register(meterRegistry);
+        }
+    }
+}
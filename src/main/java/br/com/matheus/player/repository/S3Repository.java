@@ -2,19 +2,33 @@ package br.com.matheus.player.repository;
 
 import br.com.matheus.player.exception.FileConverterException;
 import br.com.matheus.player.exception.FileUploadException;
+import br.com.matheus.player.exception.ObjectNotFoundException;
 import br.com.matheus.player.utils.JsonConverter;
+import br.com.matheus.player.utils.StoragePaths;
+import com.amazonaws.AbortedException;
+import com.amazonaws.AmazonServiceException;
 import com.amazonaws.SdkClientException;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
 import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
@@ -23,18 +37,29 @@ import java.io.InputStream;
 @Repository
 public class S3Repository {
 
-    private static final String CONTENT_FILE_PATH = "content";
+    private static final int MAX_DELETE_BATCH = 1000;
 
     @Value("${aws.s3.bucket}")
     private String bucketName;
 
     private final AmazonS3 amazonS3;
 
+    private final AmazonS3 readClient;
+
     private final JsonConverter jsonConverter;
 
-    public S3Repository(final AmazonS3 amazonS3, final JsonConverter jsonConverter) {
+    private final S3ReadPolicy readPolicy;
+
+    private final S3ReplicaRouter replicaRouter;
+
+    public S3Repository(final AmazonS3 amazonS3, @Qualifier("s3ReadClient") final AmazonS3 readClient,
+                        final JsonConverter jsonConverter, final S3ReadPolicy readPolicy,
+                        final S3ReplicaRouter replicaRouter) {
         this.amazonS3 = amazonS3;
+        this.readClient = readClient;
         this.jsonConverter = jsonConverter;
+        this.readPolicy = readPolicy;
+        this.replicaRouter = replicaRouter;
     }
 
     public <T> List<T> get(final String path, final Class<? extends T> targetClass) {
@@ -51,26 +76,100 @@ public class S3Repository {
         }
     }
 
+    /**
+     * Reads a manifest straight from the primary bucket, outside the read policy: no shared read
+     * threads, no stale copy. For callers that write back what they read.
+     */
+    public <T> List<T> getForUpdate(final String path, final Class<? extends T> targetClass) {
+        try {
+            return jsonConverter.toList(amazonS3.getObjectAsString(bucketName, path), targetClass);
+        } catch (final AmazonS3Exception e) {
+            if (e.getStatusCode() == 404) {
+                return new ArrayList<>();
+            }
+            throw new RuntimeException(e);
+        }
+    }
+
     public String getString(final String bucketName, final String path) {
         try {
-            return amazonS3.getObjectAsString(bucketName, path);
+            return readPolicy.read(buildCacheKey(bucketName, path), () -> {
+                try {
+                    if (bucketName.equals(this.bucketName)) {
+                        return replicaRouter.read((client, bucket) -> client.getObjectAsString(bucket, path));
+                    }
+                    return readClient.getObjectAsString(bucketName, path);
+                } catch (final AmazonS3Exception e) {
+                    if(e.getStatusCode() == 404) {
+                        return Collections.emptyList().toString();
+                    }
+                    throw e;
+                }
+            });
+        } catch (final AmazonS3Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Track reads are not wrapped by the read policy, so when the router's clients, which do not
+     * retry, fail transiently the track is read once more from the primary with the SDK retries.
+     */
+    public S3ObjectInputStream getObjectContent(final String path) {
+        try {
+            try {
+                return replicaRouter.read((client, bucket) -> client.getObject(bucket, path).getObjectContent());
+            } catch (final SdkClientException e) {
+                if (!isTransient(e)) {
+                    throw e;
+                }
+                return amazonS3.getObject(bucketName, path).getObjectContent();
+            }
+        } catch (final AmazonS3Exception e) {
+            if (e.getStatusCode() == 404) {
+                throw new ObjectNotFoundException(String.format("File not found: %s", path));
+            }
+            throw new RuntimeException(e);
+        }
+    }
+
+    public S3Object getObjectRange(final String path, final long start, final long end) {
+        try {
+            return amazonS3.getObject(new GetObjectRequest(bucketName, path).withRange(start, end));
         } catch (final AmazonS3Exception e) {
-            if(e.getStatusCode() == 404) {
-                return Collections.emptyList().toString();
+            if (e.getStatusCode() == 404) {
+                throw new ObjectNotFoundException(String.format("File not found: %s", path));
             }
             throw new RuntimeException(e);
         }
     }
 
+    public boolean exists(final String path) {
+        try {
+            return amazonS3.doesObjectExist(bucketName, path);
+        } catch (final AmazonS3Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public void put(final InputStream inputStream, final String filePath, final Map<String, String> userMetadata) {
+        put(inputStream, filePath, userMetadata, -1);
+    }
+
+    public void put(final InputStream inputStream, final String filePath, final Map<String, String> userMetadata,
+                    final long contentLength) {
         try {
             final ObjectMetadata metadata = new ObjectMetadata();
+            if (contentLength >= 0) {
+                metadata.setContentLength(contentLength);
+            }
             metadata.setUserMetadata(Objects.requireNonNull(userMetadata));
             Optional.of(userMetadata)
                     .map(e -> e.get("Content-Type"))
                     .ifPresent(metadata::setContentType);
 
             amazonS3.putObject(bucketName, filePath, inputStream, metadata);
+            readPolicy.invalidate(buildCacheKey(bucketName, filePath));
         } catch (final SdkClientException e) {
             throw new FileUploadException(String.format("Failed to upload file. Exception: %s", e.getMessage()));
         }
@@ -82,32 +181,105 @@ public class S3Repository {
                 .withPrefix("music/")
                 .withDelimiter("/");
 
-        final ObjectListing objects = amazonS3.listObjects(listObjectsRequest);
+        return readPolicy.read(buildCacheKey(bucketName, listObjectsRequest.getPrefix()), () -> {
+            final ObjectListing objects = readClient.listObjects(listObjectsRequest);
 
-        final List<String> listPaths = Objects.requireNonNull(objects.getCommonPrefixes());
+            final List<String> listPaths = Objects.requireNonNull(objects.getCommonPrefixes());
 
-        return extractToFoldersString(listPaths);
+            return extractToFoldersString(listPaths);
+        });
     }
 
     public List<String> getSubFoldersByFolder(final String folder) {
         try {
             final ListObjectsRequest request = new ListObjectsRequest()
-                .withPrefix(String.format("%s/%s/", CONTENT_FILE_PATH , folder))
+                .withPrefix(StoragePaths.buildFolderPrefix(StoragePaths.CONTENT_PATH, folder))
                 .withDelimiter("/")
                 .withBucketName(bucketName);
 
-            return extractToSubFoldersString(amazonS3.listObjects(request).getCommonPrefixes());
+            return readPolicy.read(buildCacheKey(bucketName, request.getPrefix()),
+                () -> extractToSubFoldersString(readClient.listObjects(request).getCommonPrefixes()));
         } catch (final AmazonS3Exception e) {
 
             throw new FileConverterException(String.format("Failed to search files, error: %s", e.getMessage()));
         }
     }
 
+    public List<S3ObjectSummary> listObjects(final String prefix) {
+        try {
+            final List<S3ObjectSummary> summaries = new ArrayList<>();
+            final ListObjectsV2Request request = new ListObjectsV2Request()
+                .withBucketName(bucketName)
+                .withPrefix(prefix);
+            ListObjectsV2Result result;
+            do {
+                result = amazonS3.listObjectsV2(request);
+                summaries.addAll(result.getObjectSummaries());
+                request.setContinuationToken(result.getNextContinuationToken());
+            } while (result.isTruncated());
+
+            return summaries;
+        } catch (final AmazonS3Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public boolean hasObjects(final String prefix) {
+        try {
+            final ListObjectsV2Request request = new ListObjectsV2Request()
+                .withBucketName(bucketName)
+                .withPrefix(prefix)
+                .withMaxKeys(1);
+
+            return amazonS3.listObjectsV2(request).getKeyCount() > 0;
+        } catch (final AmazonS3Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void copy(final String sourcePath, final String targetPath) {
+        try {
+            amazonS3.copyObject(bucketName, sourcePath, bucketName, targetPath);
+            readPolicy.invalidate(buildCacheKey(bucketName, targetPath));
+        } catch (final AmazonS3Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void delete(final List<String> paths) {
+        for (int start = 0; start < paths.size(); start += MAX_DELETE_BATCH) {
+            final List<KeyVersion> keys = paths.subList(start, Math.min(start + MAX_DELETE_BATCH, paths.size()))
+                .stream()
+                .map(KeyVersion::new)
+                .toList();
+            try {
+                amazonS3.deleteObjects(new DeleteObjectsRequest(bucketName).withKeys(keys).withQuiet(true));
+                keys.forEach(key -> readPolicy.invalidate(buildCacheKey(bucketName, key.getKey())));
+            } catch (final MultiObjectDeleteException e) {
+                throw new RuntimeException(String.format("Failed to delete %d files, first error: %s",
+                    e.getErrors().size(), e.getErrors().get(0).getMessage()), e);
+            } catch (final AmazonS3Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
     public String getUrl(final String path){
         return amazonS3.getUrl(bucketName, path).toString();
     }
 
 
+    private boolean isTransient(final SdkClientException e) {
+        if (e instanceof AmazonServiceException serviceException) {
+            return serviceException.getStatusCode() >= 500 || serviceException.getStatusCode() == 429;
+        }
+        return !(e instanceof AbortedException);
+    }
+
+    private String buildCacheKey(final String bucketName, final String path) {
+        return String.format("%s/%s", bucketName, path);
+    }
+
     private List<String> extractToSubFoldersString(final List<String> folders) {
         List<String> newSubFolders = new ArrayList<>();
         for (String folder : folders) {
@@ -0,0 +1,36 @@
+package br.com.matheus.player.service;
+
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Serialises the read-modify-write of a folder manifest inside this instance: uploads, spooled
+ * uploads and the reconciliation job all take the lock of the folder they rewrite. Folders share a
+ * fixed set of locks, so nothing grows with the number of folders in the bucket.
+ */
+@Component
+public class FolderLocks {
+
+    private static final int STRIPES = 256;
+
+    private final Object[] locks = new Object[STRIPES];
+
+    public FolderLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public <T> T call(final String folder, final Supplier<T> action) {
+        synchronized (locks[Math.floorMod(folder.hashCode(), STRIPES)]) {
+            return action.get();
+        }
+    }
+
+    public void run(final String folder, final Runnable action) {
+        call(folder, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
@@ -2,19 +2,50 @@ package br.com.matheus.player.service;
 
 import br.com.matheus.player.dto.AlbumDTO;
 import br.com.matheus.player.dto.ArchiveDTO;
+import br.com.matheus.player.exception.ObjectNotFoundException;
 import br.com.matheus.player.repository.S3Repository;
 import br.com.matheus.player.utils.JsonConverter;
+import br.com.matheus.player.utils.StoragePaths;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.amazonaws.util.StringInputStream;
-import java.io.ByteArrayInputStream;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.sax.BodyContentHandler;
 import org.apache.tika.parser.mp3.Mp3Parser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.xml.sax.ContentHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -24,18 +55,34 @@ import java.io.InputStream;
 @Service
 public class PlayerService {
 
-    private static final String JSON_TYPE = ".json";
-    private static final Map<String, String> CONTENT_TYPE_APPLICATION_JSON =
-            Collections.singletonMap("Content-Type", "application/json");
-    private static final String CONTENT_MUSIC_PATH = "music";
-    private static final String CONTENT_FILE_PATH = "content";
+    private static final Logger LOGGER = LoggerFactory.getLogger(PlayerService.class);
+
 
     private final S3Repository s3Repository;
     private final JsonConverter jsonConverter;
+    private final FolderLocks folderLocks;
+    private final int downloadPrefetch;
+    private final ExecutorService s3Executor;
+    private final ExecutorService copyExecutor;
 
-    public PlayerService(final S3Repository s3Repository, final JsonConverter jsonConverter) {
+    public PlayerService(final S3Repository s3Repository, final JsonConverter jsonConverter,
+                         final FolderLocks folderLocks,
+                         @Value("${player.download.prefetch:2}") final int downloadPrefetch,
+                         @Value("${player.s3.threads:16}") final int s3Threads,
+                         @Value("${player.s3.copy-threads:8}") final int copyThreads) {
         this.s3Repository = s3Repository;
         this.jsonConverter = jsonConverter;
+        this.folderLocks = folderLocks;
+        this.downloadPrefetch = Math.max(1, downloadPrefetch);
+        this.s3Executor = Executors.newFixedThreadPool(s3Threads, new CustomizableThreadFactory("player-s3-"));
+        // a large move queues one copy per object, downloads must not wait behind them
+        this.copyExecutor = Executors.newFixedThreadPool(copyThreads, new CustomizableThreadFactory("player-s3-copy-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        s3Executor.shutdownNow();
+        copyExecutor.shutdownNow();
     }
 
     public List<String> getAllFolders() {
@@ -43,14 +90,18 @@ public class PlayerService {
     }
 
     public void put(final MultipartFile multipartFile, final String folder) {
-        try {
-            final String fileName = multipartFile.getOriginalFilename();
-            final InputStream inputStream = multipartFile.getInputStream();
-            final Map<String, String> contentType =
-                    Collections.singletonMap("Content-Type", multipartFile.getContentType());
-            final String archivePath = buildPathArchive(folder, fileName);
-            putArchive(inputStream, archivePath, contentType);
-            putFileContent(buildArchiveDTO(multipartFile, folder), folder);
+        put(multipartFile, multipartFile.getOriginalFilename(), multipartFile.getContentType(),
+                multipartFile.getSize(), folder);
+    }
+
+    public void put(final InputStreamSource source, final String fileName, final String contentType,
+                    final long contentLength, final String folder) {
+        try (InputStream inputStream = source.getInputStream()) {
+            final Map<String, String> contentTypeMetadata =
+                    Collections.singletonMap("Content-Type", contentType);
+            final String archivePath = StoragePaths.buildPathArchive(folder, fileName);
+            putArchive(inputStream, archivePath, contentTypeMetadata, contentLength);
+            putFileContent(buildArchiveDTO(source, fileName, contentType, folder), folder);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -65,56 +116,354 @@ public class PlayerService {
         return new AlbumDTO(subFolders, folder, archives);
     }
 
-    private void putArchive(final InputStream inputStream, final String pathFile,
-                           final Map<String, String> contentType) {
-        s3Repository.put(inputStream, pathFile, contentType);
+    public List<ArchiveDTO> getArchivesToDownload(final String folder) {
+        if (checkIsNull(folder)) {
+            throw new IllegalArgumentException("Folder cannot be null, empty or blank.");
+        }
+        final List<ArchiveDTO> archives = getArchivesByFolder(folder);
+        if (archives.isEmpty()) {
+            throw new ObjectNotFoundException(String.format("No files found in folder: %s", folder));
+        }
+        return archives;
     }
 
-    private void putFileContent(final ArchiveDTO archive, final String folder) {
+    /**
+     * Streams the tracks of a folder as a ZIP archive, opening at most {@code downloadPrefetch}
+     * S3 objects ahead of the one being written so memory use does not grow with the album size.
+     * Entries are written without compression, MP3 data would not shrink anyway.
+     */
+    public void writeAlbumZip(final String folder, final List<ArchiveDTO> archives,
+                              final OutputStream outputStream) throws IOException {
+        final Iterator<String> fileNames = zipFileNames(archives).iterator();
+        final Deque<PendingEntry> window = new ArrayDeque<>();
+        final ZipOutputStream zip = new ZipOutputStream(outputStream);
+        zip.setLevel(Deflater.NO_COMPRESSION);
         try {
-            final List<ArchiveDTO> archives = getArchivesByFolder(folder);
-            if(archives.isEmpty()){
-                s3Repository.put(convertToStringInputStream(Collections.singletonList(archive)),
-                    buildContentFile(folder),
-                    CONTENT_TYPE_APPLICATION_JSON);
-            return ;
+            fillPrefetchWindow(folder, fileNames, window);
+            while (!window.isEmpty()) {
+                final PendingEntry entry = window.poll();
+                fillPrefetchWindow(folder, fileNames, window);
+                final S3ObjectInputStream content = awaitContent(entry);
+                if (content == null) {
+                    continue;
+                }
+                try (content) {
+                    zip.putNextEntry(new ZipEntry(zipEntryName(entry.fileName())));
+                    content.transferTo(zip);
+                    zip.closeEntry();
+                }
             }
-            archives.add(archive);
-            s3Repository.put(convertToStringInputStream(archives),
-                buildContentFile(folder),
-                CONTENT_TYPE_APPLICATION_JSON);
-        } catch (final Exception e) {
-            throw new RuntimeException(e);
+            zip.finish();
+        } finally {
+            window.forEach(this::discard);
         }
     }
 
-    private StringInputStream convertToStringInputStream(final List<ArchiveDTO> archiveDTOS) {
+    public void deleteFolder(final String folder) {
+        if (checkIsNull(folder)) {
+            throw new IllegalArgumentException("Folder cannot be null, empty or blank.");
+        }
+        final List<String> musicPaths = listPaths(StoragePaths.buildFolderPrefix(StoragePaths.MUSIC_PATH, folder));
+        final List<String> contentPaths = listPaths(StoragePaths.buildFolderPrefix(StoragePaths.CONTENT_PATH, folder));
+        if (musicPaths.isEmpty() && contentPaths.isEmpty()) {
+            throw new ObjectNotFoundException(String.format("Folder not found: %s", folder));
+        }
+        deleteMoved(musicPaths, contentPaths);
+    }
+
+    /**
+     * Moves a folder and its sub folders: tracks are copied server side in parallel, every
+     * manifest is rewritten once with the new urls and only then the source objects are deleted.
+     */
+    public void moveFolder(final String source, final String target) {
+        if (checkIsNull(source) || checkIsNull(target)) {
+            throw new IllegalArgumentException("Source and target folders cannot be null, empty or blank.");
+        }
+        if (source.equals(target) || target.startsWith(source + "/")) {
+            throw new IllegalArgumentException("Target folder cannot be the source folder or one of its sub folders.");
+        }
+        final String sourceMusicPrefix = StoragePaths.buildFolderPrefix(StoragePaths.MUSIC_PATH, source);
+        final String sourceContentPrefix = StoragePaths.buildFolderPrefix(StoragePaths.CONTENT_PATH, source);
+        final List<String> musicPaths = listPaths(sourceMusicPrefix);
+        final List<String> contentPaths = listPaths(sourceContentPrefix);
+        if (musicPaths.isEmpty() && contentPaths.isEmpty()) {
+            throw new ObjectNotFoundException(String.format("Folder not found: %s", source));
+        }
+        final String targetMusicPrefix = StoragePaths.buildFolderPrefix(StoragePaths.MUSIC_PATH, target);
+        final String targetContentPrefix = StoragePaths.buildFolderPrefix(StoragePaths.CONTENT_PATH, target);
+        if (s3Repository.hasObjects(targetMusicPrefix) || s3Repository.hasObjects(targetContentPrefix)) {
+            throw new IllegalArgumentException(String.format("Target folder already exists: %s", target));
+        }
+
+        final List<String> copiedPaths = new ArrayList<>();
+        final List<Future<?>> copies = new ArrayList<>();
+        final AtomicBoolean aborted = new AtomicBoolean();
+        for (final String musicPath : musicPaths) {
+            final String targetPath = targetMusicPrefix + musicPath.substring(sourceMusicPrefix.length());
+            copiedPaths.add(targetPath);
+            copies.add(submitUnlessAborted(aborted, () -> s3Repository.copy(musicPath, targetPath)));
+        }
+        for (final String contentPath : contentPaths) {
+            final String relativePath = contentPath.substring(sourceContentPrefix.length());
+            if (StoragePaths.isContentFile(contentPath)) {
+                final String contentFolder = StoragePaths.extractFolder(StoragePaths.CONTENT_PATH, contentPath);
+                final String targetFolder = target + contentFolder.substring(source.length());
+                copiedPaths.add(StoragePaths.buildContentFile(targetFolder));
+                copies.add(submitUnlessAborted(aborted, () -> moveFileContent(contentFolder, targetFolder)));
+            } else {
+                final String targetPath = targetContentPrefix + relativePath;
+                copiedPaths.add(targetPath);
+                copies.add(submitUnlessAborted(aborted, () -> s3Repository.copy(contentPath, targetPath)));
+            }
+        }
         try {
-            return new StringInputStream(jsonConverter.toJson(archiveDTOS));
-        } catch (UnsupportedEncodingException e) {
-            throw new RuntimeException(e);
+            awaitAll(copies, aborted);
+        } catch (final RuntimeException e) {
+            s3Repository.delete(copiedPaths);
+            throw e;
+        }
+        final Map<String, List<ArchiveDTO>> removed = deleteMoved(musicPaths, contentPaths);
+        // entries committed to a source manifest after it was copied, their tracks were moved with the rest
+        removed.forEach((folder, archives) -> addToFileContent(target + folder.substring(source.length()), archives));
+    }
+
+    /**
+     * Deletes the tracks and other content objects first, then every manifest under its folder lock:
+     * an upload committing meanwhile can neither write back a deleted manifest nor lose its entry.
+     * Returns, by folder, the manifest entries dropped with the deleted tracks.
+     */
+    private Map<String, List<ArchiveDTO>> deleteMoved(final List<String> musicPaths, final List<String> contentPaths) {
+        s3Repository.delete(Stream.concat(musicPaths.stream(),
+                contentPaths.stream().filter(path -> !StoragePaths.isContentFile(path))).toList());
+        final Set<String> deletedTracks = new HashSet<>(musicPaths);
+        final Map<String, List<ArchiveDTO>> removed = new LinkedHashMap<>();
+        for (final String contentPath : contentPaths) {
+            if (StoragePaths.isContentFile(contentPath)) {
+                final String folder = StoragePaths.extractFolder(StoragePaths.CONTENT_PATH, contentPath);
+                removed.put(folder, removeFromFileContent(folder, deletedTracks));
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Keeps the entries of tracks still in the bucket, uploaded after the listing, and deletes the
+     * manifest when none is left.
+     */
+    private List<ArchiveDTO> removeFromFileContent(final String folder, final Set<String> deletedTracks) {
+        return folderLocks.call(folder, () -> {
+            final List<ArchiveDTO> archives = getArchivesForUpdate(folder);
+            final List<ArchiveDTO> removed = new ArrayList<>();
+            final List<ArchiveDTO> kept = new ArrayList<>();
+            for (final ArchiveDTO archive : archives) {
+                final String trackPath = StoragePaths.buildPathArchive(folder, archive.getTitle());
+                if (deletedTracks.contains(trackPath)) {
+                    removed.add(archive);
+                } else if (s3Repository.exists(trackPath)) {
+                    kept.add(archive);
+                }
+            }
+            final String contentFile = StoragePaths.buildContentFile(folder);
+            if (kept.isEmpty()) {
+                s3Repository.delete(Collections.singletonList(contentFile));
+            } else {
+                s3Repository.put(convertToStringInputStream(kept), contentFile,
+                        StoragePaths.CONTENT_TYPE_APPLICATION_JSON);
+            }
+            return removed;
+        });
+    }
+
+    private void addToFileContent(final String folder, final List<ArchiveDTO> archives) {
+        if (archives.isEmpty()) {
+            return;
+        }
+        folderLocks.run(folder, () -> {
+            final List<ArchiveDTO> current = new ArrayList<>(getArchivesForUpdate(folder));
+            final Set<String> titles = current.stream().map(ArchiveDTO::getTitle).collect(Collectors.toSet());
+            final List<ArchiveDTO> missing = archives.stream()
+                    .filter(archive -> !titles.contains(archive.getTitle()))
+                    .map(archive -> relocate(archive, folder))
+                    .toList();
+            if (!missing.isEmpty()) {
+                current.addAll(missing);
+                s3Repository.put(convertToStringInputStream(current), StoragePaths.buildContentFile(folder),
+                        StoragePaths.CONTENT_TYPE_APPLICATION_JSON);
+            }
+        });
+    }
+
+    private void moveFileContent(final String sourceFolder, final String targetFolder) {
+        final List<ArchiveDTO> archives = getArchivesForUpdate(sourceFolder).stream()
+                .map(archive -> relocate(archive, targetFolder))
+                .toList();
+        s3Repository.put(convertToStringInputStream(archives), StoragePaths.buildContentFile(targetFolder),
+                StoragePaths.CONTENT_TYPE_APPLICATION_JSON);
+    }
+
+    private ArchiveDTO relocate(final ArchiveDTO archive, final String folder) {
+        return new ArchiveDTO(archive.getTitle(),
+                s3Repository.getUrl(StoragePaths.buildPathArchive(folder, archive.getTitle())),
+                archive.getType(),
+                archive.getDurationInSeconds());
+    }
+
+    private List<String> listPaths(final String prefix) {
+        return s3Repository.listObjects(prefix).stream()
+                .map(S3ObjectSummary::getKey)
+                .toList();
+    }
+
+    private Future<?> submitUnlessAborted(final AtomicBoolean aborted, final Runnable copy) {
+        return copyExecutor.submit(() -> {
+            if (!aborted.get()) {
+                copy.run();
+            }
+        });
+    }
+
+    /**
+     * Waits for every copy, even after one failed: copyObject ignores interrupts, so a copy still
+     * running could otherwise finish after the rollback deleted its target. Copies not started yet
+     * are skipped through {@code aborted}.
+     */
+    private void awaitAll(final List<Future<?>> futures, final AtomicBoolean aborted) {
+        RuntimeException failure = null;
+        boolean interrupted = false;
+        for (final Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (final InterruptedException e) {
+                    interrupted = true;
+                    aborted.set(true);
+                    if (failure == null) {
+                        failure = new RuntimeException(e);
+                    }
+                } catch (final ExecutionException e) {
+                    aborted.set(true);
+                    if (failure == null) {
+                        failure = e.getCause() instanceof RuntimeException runtimeException
+                                ? runtimeException
+                                : new RuntimeException(e.getCause());
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
         }
     }
 
-    private String buildPathArchive(final String folder, final String fileName) {
-        return String.format("%s/%s/%s", CONTENT_MUSIC_PATH, folder, fileName);
+    /**
+     * Titles come from client file names: entries keep only the last path component so the archive
+     * cannot write outside the directory it is extracted to, and titles with {@code ..} are left out.
+     */
+    private List<String> zipFileNames(final List<ArchiveDTO> archives) {
+        final Set<String> entryNames = new HashSet<>();
+        final List<String> fileNames = new ArrayList<>();
+        for (final String title : archives.stream().map(ArchiveDTO::getTitle).distinct().toList()) {
+            final String entryName = zipEntryName(title);
+            if (title.isBlank() || entryName.isEmpty() || Arrays.asList(title.split("[/\\\\]")).contains("..")) {
+                LOGGER.warn("Skipping {} from album download: unsafe file name", title);
+            } else if (!entryNames.add(entryName)) {
+                LOGGER.warn("Skipping {} from album download: duplicate file name {}", title, entryName);
+            } else {
+                fileNames.add(title);
+            }
+        }
+        return fileNames;
     }
 
-    private String buildContentFile(final String folder) {
-        return String.format("%s/%s/%s%s", CONTENT_FILE_PATH, folder, extractFileNameJson(folder), JSON_TYPE);
+    private String zipEntryName(final String title) {
+        return StoragePaths.extractFileName(title.replace('\\', '/'));
     }
 
-    private String extractFileNameJson(final String folder) {
-        int lastIndex = folder.lastIndexOf("/");
-        return folder.substring(lastIndex + 1);
+    private void fillPrefetchWindow(final String folder, final Iterator<String> fileNames,
+                                    final Deque<PendingEntry> window) {
+        while (window.size() < downloadPrefetch && fileNames.hasNext()) {
+            final String fileName = fileNames.next();
+            final String archivePath = StoragePaths.buildPathArchive(folder, fileName);
+            window.add(new PendingEntry(fileName,
+                    CompletableFuture.supplyAsync(() -> s3Repository.getObjectContent(archivePath), s3Executor)));
+        }
     }
 
-    private ArchiveDTO buildArchiveDTO(final MultipartFile multipartFile, final String folder) {
-        final String fileName = multipartFile.getOriginalFilename();
-        final String pathFile = buildPathArchive(folder, fileName);
+    private S3ObjectInputStream awaitContent(final PendingEntry entry) throws IOException {
+        try {
+            return entry.content().get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Album download interrupted", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof ObjectNotFoundException) {
+                LOGGER.warn("Skipping {} from album download: {}", entry.fileName(), e.getCause().getMessage());
+                return null;
+            }
+            throw new IOException(String.format("Failed to read %s", entry.fileName()), e.getCause());
+        }
+    }
+
+    /**
+     * Cancelling does not stop a getObject already in flight, so the stream is aborted whenever it
+     * arrives to give its connection back to the pool.
+     */
+    private void discard(final PendingEntry entry) {
+        entry.content().whenComplete((content, error) -> {
+            if (content != null) {
+                content.abort();
+            }
+        });
+    }
+
+    private void putArchive(final InputStream inputStream, final String pathFile,
+                           final Map<String, String> contentType, final long contentLength) {
+        s3Repository.put(inputStream, pathFile, contentType, contentLength);
+    }
+
+    private void putFileContent(final ArchiveDTO archive, final String folder) {
+        folderLocks.run(folder, () -> {
+            try {
+                final List<ArchiveDTO> archives = getArchivesForUpdate(folder);
+                // a retried upload (see UploadSpoolService) may already have its entry
+                if (archives.stream().anyMatch(existing -> Objects.equals(existing.getTitle(), archive.getTitle())
+                        && Objects.equals(existing.getUrl(), archive.getUrl()))) {
+                    return;
+                }
+                if(archives.isEmpty()){
+                    s3Repository.put(convertToStringInputStream(Collections.singletonList(archive)),
+                        StoragePaths.buildContentFile(folder),
+                        StoragePaths.CONTENT_TYPE_APPLICATION_JSON);
+                return ;
+                }
+                archives.add(archive);
+                s3Repository.put(convertToStringInputStream(archives),
+                    StoragePaths.buildContentFile(folder),
+                    StoragePaths.CONTENT_TYPE_APPLICATION_JSON);
+            } catch (final Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    private StringInputStream convertToStringInputStream(final List<ArchiveDTO> archiveDTOS) {
+        try {
+            return new StringInputStream(jsonConverter.toJson(archiveDTOS));
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private ArchiveDTO buildArchiveDTO(final InputStreamSource source, final String fileName,
+                                       final String type, final String folder) {
+        final String pathFile = StoragePaths.buildPathArchive(folder, fileName);
         final String url = s3Repository.getUrl(pathFile);
-        final String type = multipartFile.getContentType();
-        final double duration = getDuration(multipartFile);
+        final double duration = getDuration(source);
         return new ArchiveDTO(fileName, url, type, duration);
        }
 
@@ -127,15 +476,19 @@ public class PlayerService {
     }
 
     private List<ArchiveDTO> getArchivesByFolder(final String folder) {
-        return s3Repository.get(buildContentFile(folder), ArchiveDTO.class);
+        return s3Repository.get(StoragePaths.buildContentFile(folder), ArchiveDTO.class);
     }
 
-    private double getDuration(final MultipartFile multipartFile) {
-        try {
+    // a replica or a cached copy may lag behind the primary, whatever is written back must not
+    private List<ArchiveDTO> getArchivesForUpdate(final String folder) {
+        return s3Repository.getForUpdate(StoragePaths.buildContentFile(folder), ArchiveDTO.class);
+    }
+
+    private double getDuration(final InputStreamSource source) {
+        try (InputStream input = new BufferedInputStream(source.getInputStream())) {
             final ContentHandler handler = new BodyContentHandler();
             final Metadata metadata = new Metadata();
             final ParseContext parseCtx = new ParseContext();
-            final InputStream input = new ByteArrayInputStream(multipartFile.getBytes());
             final Mp3Parser parser = new Mp3Parser();
             parser.parse(input, handler, metadata, parseCtx);
 
@@ -145,4 +498,7 @@ public class PlayerService {
             return 0.0;
         }
     }
+
+    private record PendingEntry(String fileName, CompletableFuture<S3ObjectInputStream> content) {
+    }
 }
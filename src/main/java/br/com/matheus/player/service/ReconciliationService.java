@@ -0,0 +1,269 @@
+package br.com.matheus.player.service;
+
+import br.com.matheus.player.dto.ArchiveDTO;
+import br.com.matheus.player.dto.ReconciliationReportDTO;
+import br.com.matheus.player.exception.ObjectNotFoundException;
+import br.com.matheus.player.exception.OperationInProgressException;
+import br.com.matheus.player.repository.S3Repository;
+import br.com.matheus.player.utils.JsonConverter;
+import br.com.matheus.player.utils.Mp3Duration;
+import br.com.matheus.player.utils.StoragePaths;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import jakarta.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Rebuilds the {@code content/<folder>} manifests from what is actually stored under
+ * {@code music/<folder>}: entries of deleted tracks are dropped, duplicates collapsed and
+ * tracks missing from the manifest added. Only manifests that changed are written back.
+ */
+@Service
+public class ReconciliationService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReconciliationService.class);
+
+    private static final String DEFAULT_CONTENT_TYPE = "audio/mpeg";
+    private static final int MIN_FRAME_BYTES = 4 * 1024;
+
+    private final S3Repository s3Repository;
+    private final JsonConverter jsonConverter;
+    private final FolderLocks folderLocks;
+    private final ForkJoinPool reconciliationPool;
+    private final ExecutorService runner;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile ReconciliationReportDTO lastReport;
+
+    public ReconciliationService(final S3Repository s3Repository, final JsonConverter jsonConverter,
+                                 final FolderLocks folderLocks,
+                                 @Value("${player.reconciliation.parallelism:32}") final int parallelism) {
+        this.s3Repository = s3Repository;
+        this.jsonConverter = jsonConverter;
+        this.folderLocks = folderLocks;
+        this.reconciliationPool = new ForkJoinPool(parallelism);
+        this.runner = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("reconciliation-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+        reconciliationPool.shutdownNow();
+    }
+
+    @Scheduled(cron = "${player.reconciliation.cron:-}")
+    public void scheduledReconcile() {
+        try {
+            start();
+        } catch (final OperationInProgressException e) {
+            LOGGER.info("Skipping scheduled reconciliation: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Starts a reconciliation in the background, a full bucket takes minutes. The report is logged
+     * and kept for {@link #getLastReport()}.
+     */
+    public void start() {
+        if (!running.compareAndSet(false, true)) {
+            throw new OperationInProgressException("A reconciliation is already running.");
+        }
+        try {
+            runner.execute(this::run);
+        } catch (final RejectedExecutionException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    public ReconciliationReportDTO getLastReport() {
+        if (lastReport == null) {
+            throw new ObjectNotFoundException("No reconciliation has finished yet.");
+        }
+        return lastReport;
+    }
+
+    private void run() {
+        try {
+            lastReport = reconcile();
+            LOGGER.info("Reconciliation finished: {}", lastReport);
+        } catch (final RuntimeException e) {
+            LOGGER.error("Reconciliation failed", e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private ReconciliationReportDTO reconcile() {
+        try {
+            final long start = System.currentTimeMillis();
+            final Map<String, List<S3ObjectSummary>> tracksByFolder = listTracksByFolder();
+            final Set<String> contentFolders = listContentFolders();
+            final Set<String> folders = new HashSet<>(tracksByFolder.keySet());
+            folders.addAll(contentFolders);
+
+            final FolderResult result = reconciliationPool.submit(() -> folders.parallelStream()
+                    .map(folder -> reconcileFolder(folder,
+                            tracksByFolder.getOrDefault(folder, Collections.emptyList()),
+                            contentFolders.contains(folder)))
+                    .reduce(FolderResult.UNCHANGED, FolderResult::plus))
+                .get();
+
+            return new ReconciliationReportDTO(folders.size(), result.failed(), result.rewritten(),
+                    result.deleted(), result.added(), result.removed(), System.currentTimeMillis() - start,
+                    LocalDateTime.now().toString());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (final ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private Map<String, List<S3ObjectSummary>> listTracksByFolder() {
+        return s3Repository.listObjects(StoragePaths.MUSIC_PATH + "/").stream()
+                .filter(summary -> !summary.getKey().endsWith("/"))
+                .filter(summary -> summary.getKey().lastIndexOf('/') > StoragePaths.MUSIC_PATH.length())
+                .collect(Collectors.groupingBy(
+                        summary -> StoragePaths.extractFolder(StoragePaths.MUSIC_PATH, summary.getKey())));
+    }
+
+    private Set<String> listContentFolders() {
+        return s3Repository.listObjects(StoragePaths.CONTENT_PATH + "/").stream()
+                .map(S3ObjectSummary::getKey)
+                .filter(StoragePaths::isContentFile)
+                .map(path -> StoragePaths.extractFolder(StoragePaths.CONTENT_PATH, path))
+                .collect(Collectors.toSet());
+    }
+
+    private FolderResult reconcileFolder(final String folder, final List<S3ObjectSummary> tracks,
+                                         final boolean hasContentFile) {
+        try {
+            final String contentFile = StoragePaths.buildContentFile(folder);
+            final Set<String> listedTitles = hasContentFile
+                    ? s3Repository.getForUpdate(contentFile, ArchiveDTO.class).stream()
+                        .map(ArchiveDTO::getTitle)
+                        .collect(Collectors.toSet())
+                    : Collections.emptySet();
+            final Map<String, S3ObjectSummary> tracksByName = tracks.stream()
+                    .collect(Collectors.toMap(summary -> StoragePaths.extractFileName(summary.getKey()),
+                            Function.identity(), (first, second) -> first, TreeMap::new));
+
+            // probing durations reads every new track, keep it outside the folder lock
+            final List<ArchiveDTO> candidates = tracksByName.values().stream()
+                    .filter(summary -> !listedTitles.contains(StoragePaths.extractFileName(summary.getKey())))
+                    .parallel()
+                    .map(this::buildArchiveDTO)
+                    .toList();
+
+            return folderLocks.call(folder, () -> rewriteContentFile(folder, contentFile, tracksByName, candidates));
+        } catch (final RuntimeException e) {
+            LOGGER.error("Failed to reconcile folder {}", folder, e);
+            return new FolderResult(0, 0, 0, 0, 1);
+        }
+    }
+
+    /**
+     * Runs under the folder lock on a fresh read of the manifest, so entries of uploads committed
+     * while the durations were probed are kept.
+     */
+    private FolderResult rewriteContentFile(final String folder, final String contentFile,
+                                            final Map<String, S3ObjectSummary> tracksByName,
+                                            final List<ArchiveDTO> candidates) {
+        final List<ArchiveDTO> archives = s3Repository.getForUpdate(contentFile, ArchiveDTO.class);
+        final Map<String, ArchiveDTO> reconciled = new LinkedHashMap<>();
+        for (final ArchiveDTO archive : archives) {
+            // a track uploaded after the listing is still in the bucket, keep its entry
+            if (tracksByName.containsKey(archive.getTitle())
+                    || s3Repository.exists(StoragePaths.buildPathArchive(folder, archive.getTitle()))) {
+                reconciled.put(archive.getTitle(), archive);
+            }
+        }
+        final int removed = archives.size() - reconciled.size();
+
+        // a candidate deleted while the durations were probed must not bring its folder back
+        final List<ArchiveDTO> added = candidates.stream()
+                .filter(archive -> !reconciled.containsKey(archive.getTitle()))
+                .filter(archive -> s3Repository.exists(StoragePaths.buildPathArchive(folder, archive.getTitle())))
+                .toList();
+        added.forEach(archive -> reconciled.put(archive.getTitle(), archive));
+
+        if (added.isEmpty() && removed == 0) {
+            return FolderResult.UNCHANGED;
+        }
+        if (reconciled.isEmpty()) {
+            s3Repository.delete(Collections.singletonList(contentFile));
+            return new FolderResult(0, 1, 0, removed, 0);
+        }
+        final byte[] json = jsonConverter.toJson(new ArrayList<>(reconciled.values())).getBytes(StandardCharsets.UTF_8);
+        s3Repository.put(new ByteArrayInputStream(json), contentFile, StoragePaths.CONTENT_TYPE_APPLICATION_JSON);
+        return new FolderResult(1, 0, added.size(), removed, 0);
+    }
+
+    private ArchiveDTO buildArchiveDTO(final S3ObjectSummary summary) {
+        final String path = summary.getKey();
+        final String fileName = StoragePaths.extractFileName(path);
+        final String url = s3Repository.getUrl(path);
+        if (summary.getSize() == 0) {
+            return new ArchiveDTO(fileName, url, DEFAULT_CONTENT_TYPE, 0.0);
+        }
+        try (S3Object head = s3Repository.getObjectRange(path, 0, Mp3Duration.HEADER_BYTES - 1)) {
+            final byte[] headBytes = head.getObjectContent().readAllBytes();
+            final String type = Optional.ofNullable(head.getObjectMetadata().getContentType())
+                    .orElse(DEFAULT_CONTENT_TYPE);
+            return new ArchiveDTO(fileName, url, type, getDuration(path, headBytes, summary.getSize()));
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private double getDuration(final String path, final byte[] head, final long size) throws IOException {
+        final long offset = Mp3Duration.audioOffset(head);
+        if (offset >= size) {
+            return 0.0;
+        }
+        if (offset + MIN_FRAME_BYTES <= head.length) {
+            return Mp3Duration.durationMillis(Arrays.copyOfRange(head, (int) offset, head.length), size - offset);
+        }
+        // the ID3 tag (usually cover art) is larger than the first read, fetch the bytes after it
+        try (S3Object frames = s3Repository.getObjectRange(path, offset, offset + Mp3Duration.HEADER_BYTES - 1)) {
+            return Mp3Duration.durationMillis(frames.getObjectContent().readAllBytes(), size - offset);
+        }
+    }
+
+    private record FolderResult(int rewritten, int deleted, int added, int removed, int failed) {
+
+        private static final FolderResult UNCHANGED = new FolderResult(0, 0, 0, 0, 0);
+
+        private FolderResult plus(final FolderResult other) {
+            return new FolderResult(rewritten + other.rewritten, deleted + other.deleted,
+                    added + other.added, removed + other.removed, failed + other.failed);
+        }
+    }
+}
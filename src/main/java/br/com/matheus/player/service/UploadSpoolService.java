@@ -0,0 +1,326 @@
+package br.com.matheus.player.service;
+
+import br.com.matheus.player.dto.UploadJobDTO;
+import br.com.matheus.player.dto.UploadJobStatus;
+import br.com.matheus.player.exception.FileUploadException;
+import br.com.matheus.player.exception.ObjectNotFoundException;
+import br.com.matheus.player.utils.JsonConverter;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Write-behind uploads: the file is spooled to local disk and acknowledged right away, then
+ * background workers run {@link PlayerService#put} with retries. Every job is a JSON file under
+ * {@code <directory>/jobs}, so pending uploads are picked up again after a restart.
+ */
+@Service
+public class UploadSpoolService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UploadSpoolService.class);
+
+    private static final String JOBS_DIRECTORY = "jobs";
+    private static final String DATA_DIRECTORY = "data";
+    private static final String JSON_TYPE = ".json";
+    private static final long TRANSFER_CHUNK_BYTES = 8 * 1024 * 1024;
+    private static final long NO_RETRY = -1;
+
+    private final PlayerService playerService;
+    private final JsonConverter jsonConverter;
+    private final boolean enabled;
+    private final Path jobsDirectory;
+    private final Path dataDirectory;
+    private final int maxAttempts;
+    private final long retryDelayMs;
+    private final Duration retention;
+    private final ScheduledExecutorService workers;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final Set<String> spooling = ConcurrentHashMap.newKeySet();
+    private final Instant startedAt = Instant.now();
+
+    public UploadSpoolService(final PlayerService playerService, final JsonConverter jsonConverter,
+                              @Value("${player.upload.spool.enabled:false}") final boolean enabled,
+                              @Value("${player.upload.spool.directory:spool}") final String directory,
+                              @Value("${player.upload.spool.workers:4}") final int workers,
+                              @Value("${player.upload.spool.max-attempts:5}") final int maxAttempts,
+                              @Value("${player.upload.spool.retry-delay-ms:1000}") final long retryDelayMs,
+                              @Value("${player.upload.spool.retention-hours:24}") final long retentionHours) {
+        this.playerService = playerService;
+        this.jsonConverter = jsonConverter;
+        this.enabled = enabled;
+        this.jobsDirectory = Path.of(directory, JOBS_DIRECTORY);
+        this.dataDirectory = Path.of(directory, DATA_DIRECTORY);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryDelayMs = retryDelayMs;
+        this.retention = Duration.ofHours(retentionHours);
+        this.workers = Executors.newScheduledThreadPool(workers, new CustomizableThreadFactory("upload-spool-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public UploadJobDTO enqueue(final MultipartFile multipartFile, final String folder) {
+        if (folder == null || folder.isBlank()) {
+            throw new IllegalArgumentException("Folder cannot be null, empty or blank.");
+        }
+        if (multipartFile.getOriginalFilename() == null || multipartFile.getOriginalFilename().isBlank()) {
+            throw new FileUploadException("File name cannot be null, empty or blank.");
+        }
+        final String id = UUID.randomUUID().toString();
+        final String now = LocalDateTime.now().toString();
+        final UploadJobDTO job = new UploadJobDTO(id, folder, multipartFile.getOriginalFilename(),
+                multipartFile.getContentType(), multipartFile.getSize(), UploadJobStatus.PENDING, 0, null, now, now);
+        spooling.add(id);
+        try {
+            Files.createDirectories(jobsDirectory);
+            Files.createDirectories(dataDirectory);
+            spool(multipartFile, dataPath(id));
+            save(job);
+        } catch (final IOException e) {
+            deleteQuietly(dataPath(id));
+            throw new FileUploadException(String.format("Failed to spool file. Exception: %s", e.getMessage()));
+        } finally {
+            spooling.remove(id);
+        }
+        workers.execute(() -> process(id));
+        return job;
+    }
+
+    public UploadJobDTO getJob(final String id) {
+        final UploadJobDTO job = read(parseId(id));
+        if (job == null) {
+            throw new ObjectNotFoundException(String.format("Upload job not found: %s", id));
+        }
+        return job;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        if (!enabled || !Files.isDirectory(jobsDirectory)) {
+            return;
+        }
+        try (DirectoryStream<Path> jobFiles = Files.newDirectoryStream(jobsDirectory, "*" + JSON_TYPE)) {
+            for (final Path jobFile : jobFiles) {
+                final UploadJobDTO job = readQuietly(jobFile);
+                if (job == null) {
+                    continue;
+                }
+                // uploads are accepted before this runs, their jobs are already scheduled by enqueue
+                if (isBeforeStartup(job) && (job.getStatus() == UploadJobStatus.PENDING
+                        || job.getStatus() == UploadJobStatus.RUNNING)) {
+                    LOGGER.info("Resuming spooled upload {}", job);
+                    workers.execute(() -> process(job.getId()));
+                }
+            }
+        } catch (final IOException e) {
+            LOGGER.error("Failed to recover spooled uploads from {}", jobsDirectory, e);
+        }
+        removeOrphanData();
+        removeExpiredJobs();
+    }
+
+    @Scheduled(fixedDelayString = "${player.upload.spool.cleanup-interval-ms:3600000}")
+    public void removeExpiredJobs() {
+        if (!enabled || !Files.isDirectory(jobsDirectory)) {
+            return;
+        }
+        final LocalDateTime expiredBefore = LocalDateTime.now().minus(retention);
+        try (DirectoryStream<Path> jobFiles = Files.newDirectoryStream(jobsDirectory, "*" + JSON_TYPE)) {
+            for (final Path jobFile : jobFiles) {
+                final UploadJobDTO job = readQuietly(jobFile);
+                if (job != null && isFinished(job) && LocalDateTime.parse(job.getUpdatedAt()).isBefore(expiredBefore)) {
+                    Files.deleteIfExists(jobFile);
+                }
+            }
+        } catch (final IOException e) {
+            LOGGER.error("Failed to remove expired upload jobs from {}", jobsDirectory, e);
+        }
+    }
+
+    private void removeOrphanData() {
+        if (!Files.isDirectory(dataDirectory)) {
+            return;
+        }
+        // a crash between spooling the file and saving its job leaves data nobody acknowledged
+        try (DirectoryStream<Path> dataFiles = Files.newDirectoryStream(dataDirectory)) {
+            for (final Path dataFile : dataFiles) {
+                final String id = dataFile.getFileName().toString();
+                // checked before the job file: enqueue saves the job before it leaves spooling
+                if (!spooling.contains(id) && !Files.exists(jobPath(id))) {
+                    deleteQuietly(dataFile);
+                }
+            }
+        } catch (final IOException e) {
+            LOGGER.error("Failed to remove orphan spool data from {}", dataDirectory, e);
+        }
+    }
+
+    private void process(final String id) {
+        // recover() and enqueue() may both submit a job, only one worker runs it at a time
+        if (!inFlight.add(id)) {
+            return;
+        }
+        final long retryDelay;
+        try {
+            retryDelay = attempt(id);
+        } finally {
+            inFlight.remove(id);
+        }
+        if (retryDelay != NO_RETRY) {
+            workers.schedule(() -> process(id), retryDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private long attempt(final String id) {
+        final UploadJobDTO pending = read(id);
+        if (pending == null || isFinished(pending)) {
+            return NO_RETRY;
+        }
+        final UploadJobDTO job = pending.withStatus(UploadJobStatus.RUNNING, pending.getAttempts() + 1, pending.getLastError());
+        try {
+            save(job);
+            playerService.put(new FileSystemResource(dataPath(id)), job.getFileName(), job.getContentType(),
+                    job.getSize(), job.getFolder());
+            save(job.withStatus(UploadJobStatus.COMPLETED, job.getAttempts(), null));
+            deleteQuietly(dataPath(id));
+            return NO_RETRY;
+        } catch (final RuntimeException | IOException e) {
+            return onFailure(job, e);
+        }
+    }
+
+    private long onFailure(final UploadJobDTO job, final Exception error) {
+        final boolean exhausted = job.getAttempts() >= maxAttempts;
+        LOGGER.warn("Spooled upload {} failed on attempt {}", job.getId(), job.getAttempts(), error);
+        try {
+            save(job.withStatus(exhausted ? UploadJobStatus.FAILED : UploadJobStatus.PENDING,
+                    job.getAttempts(), error.getMessage()));
+        } catch (final IOException e) {
+            LOGGER.error("Failed to save upload job {}", job.getId(), e);
+        }
+        if (exhausted) {
+            // nothing will read the file again, do not keep up to a whole upload on disk
+            deleteQuietly(dataPath(job.getId()));
+            return NO_RETRY;
+        }
+        return retryDelayMs << Math.min(job.getAttempts() - 1, 10);
+    }
+
+    private boolean isBeforeStartup(final UploadJobDTO job) {
+        return LocalDateTime.parse(job.getCreatedAt()).atZone(ZoneId.systemDefault()).toInstant().isBefore(startedAt);
+    }
+
+    private boolean isFinished(final UploadJobDTO job) {
+        return job.getStatus() == UploadJobStatus.COMPLETED || job.getStatus() == UploadJobStatus.FAILED;
+    }
+
+    private void spool(final MultipartFile multipartFile, final Path target) throws IOException {
+        try (InputStream inputStream = multipartFile.getInputStream();
+             ReadableByteChannel source = Channels.newChannel(inputStream);
+             FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long position = 0;
+            long transferred;
+            while ((transferred = channel.transferFrom(source, position, TRANSFER_CHUNK_BYTES)) > 0) {
+                position += transferred;
+            }
+            channel.force(true);
+        }
+    }
+
+    private void save(final UploadJobDTO job) throws IOException {
+        final Path target = jobPath(job.getId());
+        final Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            final ByteBuffer buffer = ByteBuffer.wrap(jsonConverter.toJson(job).getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private UploadJobDTO read(final String id) {
+        final Path jobFile = jobPath(id);
+        return Files.exists(jobFile) ? read(jobFile) : null;
+    }
+
+    private UploadJobDTO read(final Path jobFile) {
+        try {
+            return jsonConverter.toObject(Files.readString(jobFile), UploadJobDTO.class);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private UploadJobDTO readQuietly(final Path jobFile) {
+        try {
+            return read(jobFile);
+        } catch (final RuntimeException e) {
+            LOGGER.error("Skipping unreadable upload job {}", jobFile, e);
+            return null;
+        }
+    }
+
+    private String parseId(final String id) {
+        try {
+            return UUID.fromString(id).toString();
+        } catch (final IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("Invalid upload job id: %s", id));
+        }
+    }
+
+    private Path jobPath(final String id) {
+        return jobsDirectory.resolve(id + JSON_TYPE);
+    }
+
+    private Path dataPath(final String id) {
+        return dataDirectory.resolve(id);
+    }
+
+    private void deleteQuietly(final Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (final IOException e) {
+            LOGGER.warn("Failed to delete {}", path, e);
+        }
+    }
+}
@@ -36,4 +36,12 @@ public class JsonConverter {
             throw new FileConverterException(String.format("Failed to converter object: %s", e.getMessage()));
         }
     }
+
+    public <T> T toObject(final String json, final Class<T> clazz) {
+        try {
+            return objectMapper.readValue(json, clazz);
+        } catch (final JsonProcessingException e) {
+            throw new FileConverterException(String.format("Failed to converter object: %s", e.getMessage()));
+        }
+    }
 }
@@ -0,0 +1,159 @@
+package br.com.matheus.player.utils;
+
+/**
+ * Estimates the duration of an MP3 from its first bytes only: the Xing/Info or VBRI frame count
+ * when the encoder wrote one, otherwise the bitrate of the first frame applied to the file size.
+ * Durations are in milliseconds, the same unit Tika's Mp3Parser reports.
+ */
+public final class Mp3Duration {
+
+    public static final int HEADER_BYTES = 16 * 1024;
+
+    private static final int[][] BITRATES = {
+        {0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448, -1},
+        {0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384, -1},
+        {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, -1},
+        {0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256, -1},
+        {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160, -1}
+    };
+    private static final int[] SAMPLE_RATES = {44100, 48000, 32000};
+
+    private static final int MPEG_1 = 3;
+    private static final int MPEG_2 = 2;
+    private static final int MPEG_2_5 = 0;
+    private static final int LAYER_1 = 3;
+    private static final int LAYER_2 = 2;
+    private static final int LAYER_3 = 1;
+    private static final int CHANNEL_MODE_MONO = 3;
+
+    private Mp3Duration() {
+    }
+
+    /**
+     * Returns the offset of the audio data, that is the size of a leading ID3v2 tag or zero.
+     */
+    public static long audioOffset(final byte[] head) {
+        if (head.length < 10 || head[0] != 'I' || head[1] != 'D' || head[2] != '3') {
+            return 0;
+        }
+        final long tagSize = ((head[6] & 0x7F) << 21) | ((head[7] & 0x7F) << 14)
+            | ((head[8] & 0x7F) << 7) | (head[9] & 0x7F);
+        final boolean hasFooter = (head[5] & 0x10) != 0;
+        return 10 + tagSize + (hasFooter ? 10 : 0);
+    }
+
+    /**
+     * Returns the duration in milliseconds, or zero when no MPEG frame header is found.
+     *
+     * @param frames bytes starting at {@link #audioOffset(byte[])}
+     * @param audioBytes size of the object minus the audio offset
+     */
+    public static double durationMillis(final byte[] frames, final long audioBytes) {
+        for (int offset = 0; offset + 4 <= frames.length; offset++) {
+            final FrameHeader header = FrameHeader.parse(frames, offset);
+            if (header == null || !isFollowedByFrame(frames, offset, header)) {
+                continue;
+            }
+            final long frameCount = readFrameCount(frames, offset, header);
+            if (frameCount > 0) {
+                return frameCount * header.samplesPerFrame() * 1000.0 / header.sampleRate();
+            }
+            return (audioBytes - offset) * 8.0 / header.bitrateKbps();
+        }
+        return 0.0;
+    }
+
+    private static boolean isFollowedByFrame(final byte[] frames, final int offset, final FrameHeader header) {
+        final int next = offset + header.frameLength();
+        return next + 4 > frames.length || FrameHeader.parse(frames, next) != null;
+    }
+
+    private static long readFrameCount(final byte[] frames, final int frameOffset, final FrameHeader header) {
+        final int sideInfo;
+        if (header.version() == MPEG_1) {
+            sideInfo = header.channelMode() == CHANNEL_MODE_MONO ? 17 : 32;
+        } else {
+            sideInfo = header.channelMode() == CHANNEL_MODE_MONO ? 9 : 17;
+        }
+        final int xing = frameOffset + 4 + sideInfo;
+        if (matches(frames, xing, "Xing") || matches(frames, xing, "Info")) {
+            final long flags = readInt(frames, xing + 4);
+            if (flags >= 0 && (flags & 0x1) != 0) {
+                return readInt(frames, xing + 8);
+            }
+            return -1;
+        }
+        final int vbri = frameOffset + 4 + 32;
+        if (matches(frames, vbri, "VBRI")) {
+            return readInt(frames, vbri + 14);
+        }
+        return -1;
+    }
+
+    private static boolean matches(final byte[] bytes, final int offset, final String tag) {
+        if (offset + tag.length() > bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < tag.length(); i++) {
+            if (bytes[offset + i] != tag.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long readInt(final byte[] bytes, final int offset) {
+        if (offset + 4 > bytes.length) {
+            return -1;
+        }
+        return ((long) (bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16)
+            | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+    }
+
+    private record FrameHeader(int version, int layer, int bitrateKbps, int sampleRate, int padding, int channelMode) {
+
+        private static FrameHeader parse(final byte[] bytes, final int offset) {
+            final int b0 = bytes[offset] & 0xFF;
+            final int b1 = bytes[offset + 1] & 0xFF;
+            final int b2 = bytes[offset + 2] & 0xFF;
+            final int b3 = bytes[offset + 3] & 0xFF;
+            if (b0 != 0xFF || (b1 & 0xE0) != 0xE0) {
+                return null;
+            }
+            final int version = (b1 >> 3) & 0x3;
+            final int layer = (b1 >> 1) & 0x3;
+            final int bitrateIndex = (b2 >> 4) & 0xF;
+            final int sampleRateIndex = (b2 >> 2) & 0x3;
+            if (version == 1 || layer == 0 || bitrateIndex == 0 || bitrateIndex == 15 || sampleRateIndex == 3) {
+                return null;
+            }
+            final int bitrate = BITRATES[bitrateTable(version, layer)][bitrateIndex];
+            final int sampleRate = SAMPLE_RATES[sampleRateIndex] >> (version == MPEG_1 ? 0 : version == MPEG_2 ? 1 : 2);
+            return new FrameHeader(version, layer, bitrate, sampleRate, (b2 >> 1) & 0x1, (b3 >> 6) & 0x3);
+        }
+
+        private static int bitrateTable(final int version, final int layer) {
+            if (version == MPEG_1) {
+                return layer == LAYER_1 ? 0 : layer == LAYER_2 ? 1 : 2;
+            }
+            return layer == LAYER_1 ? 3 : 4;
+        }
+
+        private int frameLength() {
+            if (layer == LAYER_1) {
+                return (12 * bitrateKbps * 1000 / sampleRate + padding) * 4;
+            }
+            return samplesPerFrame() / 8 * bitrateKbps * 1000 / sampleRate + padding;
+        }
+
+        private int samplesPerFrame() {
+            if (layer == LAYER_1) {
+                return 384;
+            }
+            if (layer == LAYER_3 && (version == MPEG_2 || version == MPEG_2_5)) {
+                return 576;
+            }
+            return 1152;
+        }
+    }
+}
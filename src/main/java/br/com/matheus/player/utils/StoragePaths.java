@@ -0,0 +1,50 @@
+package br.com.matheus.player.utils;
+
+import java.util.Collections;
+import java.util.Map;
+
+public final class StoragePaths {
+
+    public static final String MUSIC_PATH = "music";
+    public static final String CONTENT_PATH = "content";
+    public static final Map<String, String> CONTENT_TYPE_APPLICATION_JSON =
+            Collections.singletonMap("Content-Type", "application/json");
+
+    private static final String JSON_TYPE = ".json";
+
+    private StoragePaths() {
+    }
+
+    public static String buildPathArchive(final String folder, final String fileName) {
+        return String.format("%s/%s/%s", MUSIC_PATH, folder, fileName);
+    }
+
+    public static String buildFolderPrefix(final String root, final String folder) {
+        return String.format("%s/%s/", root, folder);
+    }
+
+    public static String buildContentFile(final String folder) {
+        return String.format("%s/%s/%s%s", CONTENT_PATH, folder, extractFileNameJson(folder), JSON_TYPE);
+    }
+
+    /**
+     * Returns the folder of a key such as {@code music/<folder>/<file>}, without the root prefix.
+     */
+    public static String extractFolder(final String root, final String path) {
+        return path.substring(root.length() + 1, path.lastIndexOf('/'));
+    }
+
+    public static String extractFileName(final String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    public static boolean isContentFile(final String path) {
+        return path.lastIndexOf('/') > CONTENT_PATH.length()
+            && path.equals(buildContentFile(extractFolder(CONTENT_PATH, path)));
+    }
+
+    private static String extractFileNameJson(final String folder) {
+        int lastIndex = folder.lastIndexOf("/");
+        return folder.substring(lastIndex + 1);
+    }
+}
@@ -0,0 +1,205 @@
+package br.com.matheus.player.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class S3ReadPolicyTest {
+
+    private static final String KEY = "bucket/content/rock/rock.json";
+
+    private S3ReadPolicy policy;
+
+    @AfterEach
+    void shutdown() {
+        if (policy != null) {
+            policy.shutdown();
+        }
+    }
+
+    @Test
+    void breakerOpensThenLetsOneTrialThroughAndCloses() throws InterruptedException {
+        policy = policy(false, 1, 0.1, 2, 100);
+        final ScriptedCall call = new ScriptedCall();
+        call.failing = true;
+
+        assertThrows(SdkClientException.class, () -> policy.read(KEY, call));
+        assertThrows(SdkClientException.class, () -> policy.read(KEY, call));
+        assertThrows(SdkClientException.class, () -> policy.read(KEY, call));
+        assertEquals(2, call.calls.get(), "open breaker must not call S3");
+
+        TimeUnit.MILLISECONDS.sleep(150);
+        call.failing = false;
+
+        assertEquals("value", policy.read(KEY, call));
+        assertEquals("value", policy.read(KEY, call));
+        assertEquals(4, call.calls.get());
+    }
+
+    @Test
+    void failedTrialReopensTheBreaker() throws InterruptedException {
+        policy = policy(false, 1, 0.1, 1, 100);
+        final ScriptedCall call = new ScriptedCall();
+        call.failing = true;
+
+        assertThrows(SdkClientException.class, () -> policy.read(KEY, call));
+        TimeUnit.MILLISECONDS.sleep(150);
+        assertThrows(SdkClientException.class, () -> policy.read(KEY, call));
+        assertThrows(SdkClientException.class, () -> policy.read(KEY, call));
+
+        assertEquals(2, call.calls.get());
+    }
+
+    @Test
+    void servesLastGoodCopyWhileReadsFail() {
+        policy = policy(false, 2, 0.1, 1, 60_000);
+        final ScriptedCall call = new ScriptedCall();
+        assertEquals("value", policy.read(KEY, call));
+
+        call.failing = true;
+
+        assertEquals("value", policy.read(KEY, call));
+        assertEquals("value", policy.read(KEY, call));
+        assertThrows(SdkClientException.class, () -> policy.read("bucket/other.json", call));
+    }
+
+    @Test
+    void invalidatedCopyIsNotServed() {
+        policy = policy(false, 1, 0.1, 5, 60_000);
+        final ScriptedCall call = new ScriptedCall();
+        assertEquals("value", policy.read(KEY, call));
+
+        policy.invalidate(KEY);
+        call.failing = true;
+
+        assertThrows(SdkClientException.class, () -> policy.read(KEY, call));
+    }
+
+    @Test
+    void clientErrorsAreNotRetriedNorMasked() {
+        policy = policy(false, 3, 0.1, 5, 60_000);
+        final ScriptedCall call = new ScriptedCall();
+        assertEquals("value", policy.read(KEY, call));
+        final AtomicInteger calls = new AtomicInteger();
+
+        final AmazonS3Exception error = assertThrows(AmazonS3Exception.class, () -> policy.read(KEY, () -> {
+            calls.incrementAndGet();
+            throw serviceError(403);
+        }));
+
+        assertEquals(403, error.getStatusCode());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void stopsRetryingOnceTheBudgetIsSpent() {
+        // ten tokens and no refill: five reads retry twice each, the sixth gets a single attempt
+        policy = policy(false, 3, 0, 1_000, 60_000);
+        final AtomicInteger calls = new AtomicInteger();
+        final Supplier<String> unavailable = () -> {
+            calls.incrementAndGet();
+            throw serviceError(503);
+        };
+
+        for (int read = 1; read <= 5; read++) {
+            assertThrows(AmazonS3Exception.class, () -> policy.read(KEY, unavailable));
+            assertEquals(read * 3, calls.get());
+        }
+        assertThrows(AmazonS3Exception.class, () -> policy.read(KEY, unavailable));
+
+        assertEquals(16, calls.get());
+    }
+
+    @Test
+    void hedgesASlowRead() {
+        policy = policy(true, 1, 0.1, 5, 60_000);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        try {
+            final String value = policy.read(KEY, () -> {
+                if (calls.incrementAndGet() == 1) {
+                    await(release);
+                    return "slow";
+                }
+                return "hedged";
+            });
+
+            assertEquals("hedged", value);
+            assertEquals(2, calls.get());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void servesLastGoodCopyWhenNoReadThreadFreesUp() throws InterruptedException {
+        policy = new S3ReadPolicy(false, 10, 100, 1, 0, 0, 0.1, 5, 60_000, 100, 1);
+        final ScriptedCall call = new ScriptedCall();
+        assertEquals("value", policy.read(KEY, call));
+        final CountDownLatch release = new CountDownLatch(1);
+        final Thread stuckRead = new Thread(() -> {
+            try {
+                policy.read("bucket/stuck.json", () -> {
+                    await(release);
+                    return "stuck";
+                });
+            } catch (final SdkClientException e) {
+                // timed out, the thread stays busy until released
+            }
+        });
+        stuckRead.start();
+        TimeUnit.MILLISECONDS.sleep(50);
+        try {
+            assertEquals("value", policy.read(KEY, call));
+        } finally {
+            release.countDown();
+        }
+        stuckRead.join();
+        TimeUnit.MILLISECONDS.sleep(50);
+
+        assertEquals(1, call.calls.get(), "the attempt given up on while queued must not run");
+    }
+
+    private static S3ReadPolicy policy(final boolean hedge, final int maxAttempts, final double budgetRatio,
+                                       final int breakerThreshold, final long breakerOpenMs) {
+        return new S3ReadPolicy(hedge, 10, 3000, maxAttempts, 0, 0, budgetRatio, breakerThreshold,
+                breakerOpenMs, 100, 4);
+    }
+
+    private static AmazonS3Exception serviceError(final int statusCode) {
+        final AmazonS3Exception error = new AmazonS3Exception("status " + statusCode);
+        error.setStatusCode(statusCode);
+        return error;
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class ScriptedCall implements Supplier<String> {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile boolean failing;
+
+        @Override
+        public String get() {
+            calls.incrementAndGet();
+            if (failing) {
+                throw new SdkClientException("connection reset");
+            }
+            return "value";
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package br.com.matheus.player.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+
+class S3ReplicaRouterTest {
+
+    // the EWMA is the last sample, which keeps the routing decisions of a test predictable
+    private static final double ALPHA = 1.0;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void replicaMissFallsBackToPrimaryAndCountsAgainstTheReplica() {
+        final FakeS3 primary = new FakeS3("primary", 10, Set.of("song"));
+        final FakeS3 replica = new FakeS3("replica", 0, Set.of());
+        final S3ReplicaRouter router = router(primary, replica, 3, 60_000);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals("primary:song", read(router, "song"));
+        }
+
+        assertTrue(replica.calls.get() >= 1, "the unmeasured replica should have been tried");
+        // a miss recorded as a fast sample would keep every read on the replica
+        assertTrue(replica.calls.get() < 5, "replica kept receiving reads it misses: " + replica.calls.get());
+        assertEquals(replica.calls.get(), (long) fallbacks("miss"));
+    }
+
+    @Test
+    void objectMissingEverywhereIsNotCountedAgainstTheReplica() {
+        final FakeS3 primary = new FakeS3("primary", 5, Set.of("song"));
+        final FakeS3 replica = new FakeS3("replica", 0, Set.of("song"));
+        final S3ReplicaRouter router = router(primary, replica, 3, 60_000);
+        readUntil(router, () -> replica.calls.get() > 0);
+        final int callsBefore = replica.calls.get();
+
+        for (int i = 0; i < 20; i++) {
+            final AmazonS3Exception error = assertThrows(AmazonS3Exception.class, () -> read(router, "missing"));
+            assertEquals(404, error.getStatusCode());
+        }
+
+        assertEquals(0.0, fallbacks("miss"));
+        assertTrue(replica.calls.get() - callsBefore >= 15, "replica stopped receiving reads after real absences");
+    }
+
+    @Test
+    void failingReplicaIsSkippedDuringItsCooldown() {
+        final FakeS3 primary = new FakeS3("primary", 5, Set.of("song"));
+        final FakeS3 replica = new FakeS3("replica", 0, Set.of("song"));
+        replica.failing = true;
+        final S3ReplicaRouter router = router(primary, replica, 3, 60_000);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals("primary:song", read(router, "song"));
+        }
+
+        assertEquals(3, replica.calls.get());
+        assertEquals(3, (long) fallbacks("error"));
+        assertEquals(0.0, healthy("replica"));
+        assertEquals(1.0, healthy("primary"));
+    }
+
+    @Test
+    void probesARecoveredReplicaSlowerThanThePrimary() throws InterruptedException {
+        final FakeS3 primary = new FakeS3("primary", 20, Set.of("song"));
+        final FakeS3 replica = new FakeS3("replica", 5, Set.of("song"));
+        final S3ReplicaRouter router = router(primary, replica, 1, 300);
+        readUntil(router, () -> replica.calls.get() > 0);
+        replica.failing = true;
+        readUntil(router, () -> fallbacks("error") > 0);
+        assertEquals(0.0, healthy("replica"));
+
+        // while the replica cools down the primary becomes the faster endpoint
+        primary.delayMs = 0;
+        replica.failing = false;
+        final int callsBeforeCooldown = replica.calls.get();
+        for (int i = 0; i < 5; i++) {
+            assertEquals("primary:song", read(router, "song"));
+        }
+        assertEquals(callsBeforeCooldown, replica.calls.get());
+
+        TimeUnit.MILLISECONDS.sleep(350);
+
+        assertEquals("replica:song", read(router, "song"));
+        assertEquals(1.0, healthy("replica"));
+    }
+
+    private S3ReplicaRouter router(final FakeS3 primary, final FakeS3 replica, final int failureThreshold,
+                                   final long cooldownMs) {
+        return new S3ReplicaRouter(new S3ReplicaRouter.Endpoint("primary", "bucket", primary),
+                List.of(new S3ReplicaRouter.Endpoint("replica", "bucket-replica", replica)),
+                ALPHA, failureThreshold, cooldownMs, meterRegistry);
+    }
+
+    private static String read(final S3ReplicaRouter router, final String key) {
+        return router.read((client, bucket) -> client.getObjectAsString(bucket, key));
+    }
+
+    private static void readUntil(final S3ReplicaRouter router, final BooleanSupplier condition) {
+        for (int i = 0; i < 50 && !condition.getAsBoolean(); i++) {
+            read(router, "song");
+        }
+        assertTrue(condition.getAsBoolean(), "condition not reached after 50 reads");
+    }
+
+    private double fallbacks(final String reason) {
+        return meterRegistry.get("player.s3.read.fallback").tags("endpoint", "replica", "reason", reason)
+                .counter().count();
+    }
+
+    private double healthy(final String endpoint) {
+        return meterRegistry.get("player.s3.endpoint.healthy").tag("endpoint", endpoint).gauge().value();
+    }
+
+    private static final class FakeS3 extends AbstractAmazonS3 {
+
+        private final String name;
+        private final Set<String> keys;
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile long delayMs;
+        private volatile boolean failing;
+
+        private FakeS3(final String name, final long delayMs, final Set<String> keys) {
+            this.name = name;
+            this.delayMs = delayMs;
+            this.keys = keys;
+        }
+
+        @Override
+        public String getObjectAsString(final String bucketName, final String key) {
+            calls.incrementAndGet();
+            try {
+                TimeUnit.MILLISECONDS.sleep(delayMs);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failing) {
+                throw new SdkClientException("connection reset");
+            }
+            if (!keys.contains(key)) {
+                final AmazonS3Exception notFound = new AmazonS3Exception("Not Found");
+                notFound.setStatusCode(404);
+                throw notFound;
+            }
+            return name + ":" + key;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package br.com.matheus.player.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.com.matheus.player.dto.ArchiveDTO;
+import br.com.matheus.player.repository.S3ReadPolicy;
+import br.com.matheus.player.repository.S3ReplicaRouter;
+import br.com.matheus.player.repository.S3Repository;
+import br.com.matheus.player.utils.JsonConverter;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.CopyObjectResult;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsResult;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class PlayerServiceTest {
+
+    private static final String BUCKET = "bucket";
+
+    private final JsonConverter jsonConverter = new JsonConverter(new ObjectMapper());
+    private final FakeS3 s3 = new FakeS3();
+    private final S3ReadPolicy readPolicy = new S3ReadPolicy(false, 10, 3000, 1, 0, 0, 0.1, 5, 1000, 100, 2);
+    private final PlayerService playerService = new PlayerService(repository(), jsonConverter, new FolderLocks(),
+            2, 2, 4);
+
+    @AfterEach
+    void shutdown() {
+        playerService.shutdown();
+        readPolicy.shutdown();
+    }
+
+    @Test
+    void moveCopiesTracksAndRewritesManifestUrls() {
+        seedAlbum();
+
+        playerService.moveFolder("rock", "jazz");
+
+        assertEquals(Set.of("music/jazz/a.mp3", "music/jazz/b.mp3", "music/jazz/live/x.mp3",
+                "content/jazz/jazz.json", "content/jazz/live/live.json"), s3.objects.keySet());
+        assertEquals(List.of(url("jazz/a.mp3"), url("jazz/b.mp3")), urls("content/jazz/jazz.json"));
+        assertEquals(List.of(url("jazz/live/x.mp3")), urls("content/jazz/live/live.json"));
+    }
+
+    @Test
+    void failedCopyRollsBackTheMove() {
+        seedAlbum();
+        final Set<String> before = Set.copyOf(s3.objects.keySet());
+        s3.failingCopy = "music/rock/b.mp3";
+
+        assertThrows(RuntimeException.class, () -> playerService.moveFolder("rock", "jazz"));
+
+        assertEquals(before, s3.objects.keySet());
+    }
+
+    @Test
+    void rollbackWaitsForCopiesStillRunning() throws InterruptedException {
+        seedAlbum();
+        final Set<String> before = Set.copyOf(s3.objects.keySet());
+        s3.failingCopy = "music/rock/a.mp3";
+        s3.slowCopy = "music/rock/live/x.mp3";
+
+        assertThrows(RuntimeException.class, () -> playerService.moveFolder("rock", "jazz"));
+        TimeUnit.MILLISECONDS.sleep(400);
+
+        assertEquals(before, s3.objects.keySet());
+    }
+
+    @Test
+    void moveKeepsEntryCommittedAfterTheManifestWasCopied() {
+        seedAlbum();
+        seed("music/rock/c.mp3", "c");
+        s3.beforeFirstDelete.set(() -> seedManifest("rock", "a.mp3", "b.mp3", "c.mp3"));
+
+        playerService.moveFolder("rock", "jazz");
+
+        assertFalse(s3.objects.containsKey("content/rock/rock.json"));
+        assertEquals(List.of(url("jazz/a.mp3"), url("jazz/b.mp3"), url("jazz/c.mp3")),
+                urls("content/jazz/jazz.json"));
+    }
+
+    @Test
+    void deleteKeepsEntryOfTrackUploadedAfterTheListing() {
+        seedAlbum();
+        s3.beforeFirstDelete.set(() -> {
+            seed("music/rock/late.mp3", "late");
+            seedManifest("rock", "a.mp3", "b.mp3", "late.mp3");
+        });
+
+        playerService.deleteFolder("rock");
+
+        assertEquals(Set.of("music/rock/late.mp3", "content/rock/rock.json"), s3.objects.keySet());
+        assertEquals(List.of(url("rock/late.mp3")), urls("content/rock/rock.json"));
+    }
+
+    @Test
+    void moveRejectsTargetInsideSource() {
+        seedAlbum();
+
+        assertThrows(IllegalArgumentException.class, () -> playerService.moveFolder("rock", "rock/live"));
+        assertTrue(s3.objects.containsKey("music/rock/a.mp3"));
+    }
+
+    private S3Repository repository() {
+        final S3ReplicaRouter router = new S3ReplicaRouter(new S3ReplicaRouter.Endpoint("primary", BUCKET, s3),
+                List.of(), 0.2, 3, 1000, new SimpleMeterRegistry());
+        final S3Repository repository = new S3Repository(s3, s3, jsonConverter, readPolicy, router);
+        ReflectionTestUtils.setField(repository, "bucketName", BUCKET);
+        return repository;
+    }
+
+    private void seedAlbum() {
+        seed("music/rock/a.mp3", "a");
+        seed("music/rock/b.mp3", "b");
+        seed("music/rock/live/x.mp3", "x");
+        seedManifest("rock", "a.mp3", "b.mp3");
+        seedManifest("rock/live", "x.mp3");
+    }
+
+    private void seedManifest(final String folder, final String... titles) {
+        final List<ArchiveDTO> archives = new ArrayList<>();
+        for (final String title : titles) {
+            archives.add(new ArchiveDTO(title, url(folder + "/" + title), "audio/mpeg", 1.0));
+        }
+        final String name = folder.substring(folder.lastIndexOf('/') + 1);
+        seed(String.format("content/%s/%s.json", folder, name), jsonConverter.toJson(archives));
+    }
+
+    private void seed(final String key, final String content) {
+        s3.objects.put(key, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<String> urls(final String manifest) {
+        return jsonConverter.<ArchiveDTO>toList(s3.getObjectAsString(BUCKET, manifest), ArchiveDTO.class).stream()
+                .map(ArchiveDTO::getUrl)
+                .toList();
+    }
+
+    private static String url(final String path) {
+        return String.format("https://%s.s3.local/music/%s", BUCKET, path);
+    }
+
+    /**
+     * Single bucket S3 holding only what the folder operations use.
+     */
+    private static final class FakeS3 extends AbstractAmazonS3 {
+
+        private final NavigableMap<String, byte[]> objects = new ConcurrentSkipListMap<>();
+        private final AtomicReference<Runnable> beforeFirstDelete = new AtomicReference<>();
+        private volatile String failingCopy;
+        private volatile String slowCopy;
+
+        @Override
+        public String getObjectAsString(final String bucketName, final String key) {
+            final byte[] content = objects.get(key);
+            if (content == null) {
+                final AmazonS3Exception notFound = new AmazonS3Exception("Not Found");
+                notFound.setStatusCode(404);
+                throw notFound;
+            }
+            return new String(content, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public boolean doesObjectExist(final String bucketName, final String key) {
+            return objects.containsKey(key);
+        }
+
+        @Override
+        public PutObjectResult putObject(final String bucketName, final String key, final InputStream input,
+                                         final ObjectMetadata metadata) {
+            try {
+                objects.put(key, input.readAllBytes());
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return new PutObjectResult();
+        }
+
+        @Override
+        public CopyObjectResult copyObject(final String sourceBucket, final String sourceKey,
+                                           final String targetBucket, final String targetKey) {
+            if (sourceKey.equals(failingCopy)) {
+                throw new SdkClientException("copy failed");
+            }
+            if (sourceKey.equals(slowCopy)) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(200);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            objects.put(targetKey, objects.get(sourceKey));
+            return new CopyObjectResult();
+        }
+
+        @Override
+        public DeleteObjectsResult deleteObjects(final DeleteObjectsRequest request) {
+            final Runnable hook = beforeFirstDelete.getAndSet(null);
+            if (hook != null) {
+                hook.run();
+            }
+            request.getKeys().forEach(key -> objects.remove(key.getKey()));
+            return new DeleteObjectsResult(List.of());
+        }
+
+        @Override
+        public ListObjectsV2Result listObjectsV2(final ListObjectsV2Request request) {
+            final ListObjectsV2Result result = new ListObjectsV2Result();
+            final Map<String, byte[]> matching = objects.subMap(request.getPrefix(), request.getPrefix() + Character.MAX_VALUE);
+            final List<String> keys = matching.keySet().stream()
+                    .limit(request.getMaxKeys() == null ? Long.MAX_VALUE : request.getMaxKeys())
+                    .collect(Collectors.toList());
+            for (final String key : keys) {
+                final S3ObjectSummary summary = new S3ObjectSummary();
+                summary.setBucketName(BUCKET);
+                summary.setKey(key);
+                summary.setSize(objects.getOrDefault(key, new byte[0]).length);
+                result.getObjectSummaries().add(summary);
+            }
+            result.setKeyCount(keys.size());
+            result.setTruncated(false);
+            return result;
+        }
+
+        @Override
+        public URL getUrl(final String bucketName, final String key) {
+            try {
+                return new URL(String.format("https://%s.s3.local/%s", bucketName, key));
+            } catch (final MalformedURLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
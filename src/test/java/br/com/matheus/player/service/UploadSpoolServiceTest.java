@@ -0,0 +1,272 @@
+package br.com.matheus.player.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.com.matheus.player.dto.UploadJobDTO;
+import br.com.matheus.player.dto.UploadJobStatus;
+import br.com.matheus.player.utils.JsonConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.mock.web.MockMultipartFile;
+
+class UploadSpoolServiceTest {
+
+    private static final String JOB_ID = "00000000-0000-0000-0000-000000000001";
+    private static final String BEFORE_STARTUP = "2020-01-01T00:00";
+
+    @TempDir
+    Path spoolDirectory;
+
+    private final JsonConverter jsonConverter = new JsonConverter(new ObjectMapper());
+    private final StubPlayerService playerService = new StubPlayerService();
+    private UploadSpoolService spool;
+
+    @AfterEach
+    void shutdown() {
+        if (spool != null) {
+            spool.shutdown();
+        }
+        playerService.release.countDown();
+        playerService.shutdown();
+    }
+
+    @Test
+    void uploadsSpooledFileAndReleasesItsData() throws IOException {
+        spool = spool(3);
+
+        final UploadJobDTO job = spool.enqueue(new MockMultipartFile("file", "song.mp3", "audio/mpeg",
+                "mp3 bytes".getBytes(StandardCharsets.UTF_8)), "rock");
+
+        awaitStatus(job.getId(), UploadJobStatus.COMPLETED);
+        assertEquals(List.of("rock/song.mp3:mp3 bytes"), playerService.uploads);
+        assertEquals(0, countFiles("data"));
+    }
+
+    @Test
+    void retriesFailedUploads() throws IOException {
+        spool = spool(5);
+        playerService.failures.set(2);
+
+        final UploadJobDTO job = spool.enqueue(file("song.mp3"), "rock");
+
+        awaitStatus(job.getId(), UploadJobStatus.COMPLETED);
+        assertEquals(3, spool.getJob(job.getId()).getAttempts());
+        assertEquals(1, playerService.uploads.size());
+    }
+
+    @Test
+    void failedJobReleasesItsData() throws IOException {
+        spool = spool(2);
+        playerService.failures.set(Integer.MAX_VALUE);
+
+        final UploadJobDTO job = spool.enqueue(file("song.mp3"), "rock");
+
+        awaitStatus(job.getId(), UploadJobStatus.FAILED);
+        assertEquals(2, spool.getJob(job.getId()).getAttempts());
+        assertEquals("S3 unavailable", spool.getJob(job.getId()).getLastError());
+        assertEquals(0, countFiles("data"));
+    }
+
+    @Test
+    void recoverResumesInterruptedJobsAndRemovesOrphanData() throws IOException {
+        writeJob(JOB_ID, UploadJobStatus.RUNNING, BEFORE_STARTUP);
+        writeData("orphan");
+        spool = spool(3);
+
+        spool.recover();
+
+        awaitStatus(JOB_ID, UploadJobStatus.COMPLETED);
+        assertEquals(List.of("jazz/a.mp3:spooled"), playerService.uploads);
+        assertEquals(2, spool.getJob(JOB_ID).getAttempts());
+        assertEquals(0, countFiles("data"));
+    }
+
+    @Test
+    void jobSubmittedTwiceIsUploadedOnce() throws IOException {
+        writeJob(JOB_ID, UploadJobStatus.PENDING, BEFORE_STARTUP);
+        spool = spool(3);
+        playerService.blocking = true;
+
+        spool.recover();
+        await(() -> playerService.calls.get() == 1);
+        spool.recover();
+        sleep(200);
+        playerService.release.countDown();
+
+        awaitStatus(JOB_ID, UploadJobStatus.COMPLETED);
+        sleep(200);
+        assertEquals(1, playerService.calls.get());
+        assertEquals(1, spool.getJob(JOB_ID).getAttempts());
+    }
+
+    @Test
+    void recoverKeepsDataOfAnUploadStillBeingSpooled() throws Exception {
+        spool = spool(3);
+        final CountDownLatch received = new CountDownLatch(1);
+        final CountDownLatch resume = new CountDownLatch(1);
+        final MockMultipartFile slowFile = new MockMultipartFile("file", "song.mp3", "audio/mpeg", new byte[0]) {
+            @Override
+            public InputStream getInputStream() {
+                return new SlowInputStream(received, resume);
+            }
+        };
+        final Thread upload = new Thread(() -> spool.enqueue(slowFile, "rock"));
+        upload.start();
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+
+        spool.recover();
+        final boolean kept = countFiles("data") == 1;
+        resume.countDown();
+        upload.join();
+
+        assertTrue(kept, "data of an upload still being spooled was removed");
+        await(() -> playerService.uploads.size() == 1);
+        assertEquals("rock/song.mp3:slow", playerService.uploads.get(0));
+    }
+
+    @Test
+    void removesFinishedJobsPastRetention() throws IOException {
+        writeJob("00000000-0000-0000-0000-000000000002", UploadJobStatus.COMPLETED, BEFORE_STARTUP);
+        writeJob("00000000-0000-0000-0000-000000000003", UploadJobStatus.FAILED, BEFORE_STARTUP);
+        writeJob(JOB_ID, UploadJobStatus.PENDING, BEFORE_STARTUP);
+        spool = spool(3);
+
+        spool.removeExpiredJobs();
+
+        assertEquals(1, countFiles("jobs"));
+        assertEquals(UploadJobStatus.PENDING, spool.getJob(JOB_ID).getStatus());
+    }
+
+    private UploadSpoolService spool(final int maxAttempts) {
+        return new UploadSpoolService(playerService, jsonConverter, true, spoolDirectory.toString(), 2,
+                maxAttempts, 10, 24);
+    }
+
+    private static MockMultipartFile file(final String name) {
+        return new MockMultipartFile("file", name, "audio/mpeg", "mp3 bytes".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeJob(final String id, final UploadJobStatus status, final String at) throws IOException {
+        Files.createDirectories(spoolDirectory.resolve("jobs"));
+        final int attempts = status == UploadJobStatus.PENDING ? 0 : 1;
+        final UploadJobDTO job = new UploadJobDTO(id, "jazz", "a.mp3", "audio/mpeg", 7, status, attempts, null, at, at);
+        Files.writeString(spoolDirectory.resolve("jobs").resolve(id + ".json"), jsonConverter.toJson(job));
+        writeData(id);
+    }
+
+    private void writeData(final String name) throws IOException {
+        Files.createDirectories(spoolDirectory.resolve("data"));
+        Files.writeString(spoolDirectory.resolve("data").resolve(name), "spooled");
+    }
+
+    private long countFiles(final String directory) throws IOException {
+        try (Stream<Path> files = Files.list(spoolDirectory.resolve(directory))) {
+            return files.count();
+        }
+    }
+
+    private void awaitStatus(final String id, final UploadJobStatus status) {
+        await(() -> spool.getJob(id).getStatus() == status);
+    }
+
+    private static void await(final BooleanSupplier condition) {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertFalse(System.nanoTime() > deadline, "condition not reached within 5 seconds");
+            sleep(10);
+        }
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class StubPlayerService extends PlayerService {
+
+        private final List<String> uploads = new CopyOnWriteArrayList<>();
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean blocking;
+
+        private StubPlayerService() {
+            super(null, null, null, 1, 1, 1);
+        }
+
+        @Override
+        public void put(final InputStreamSource source, final String fileName, final String contentType,
+                        final long contentLength, final String folder) {
+            calls.incrementAndGet();
+            if (blocking) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failures.getAndDecrement() > 0) {
+                throw new RuntimeException("S3 unavailable");
+            }
+            try (InputStream input = source.getInputStream()) {
+                uploads.add(folder + "/" + fileName + ":" + new String(input.readAllBytes(), StandardCharsets.UTF_8));
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Blocks the first read until the test resumes it, the spool file exists by then.
+     */
+    private static final class SlowInputStream extends InputStream {
+
+        private final CountDownLatch received;
+        private final CountDownLatch resume;
+        private final InputStream content = new ByteArrayInputStream("slow".getBytes(StandardCharsets.UTF_8));
+
+        private SlowInputStream(final CountDownLatch received, final CountDownLatch resume) {
+            this.received = received;
+            this.resume = resume;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0];
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            received.countDown();
+            try {
+                resume.await(5, TimeUnit.SECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return content.read(buffer, offset, length);
+        }
+    }
+}
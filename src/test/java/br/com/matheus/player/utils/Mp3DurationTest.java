@@ -0,0 +1,117 @@
+package br.com.matheus.player.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class Mp3DurationTest {
+
+    // MPEG-1 layer III, 128 kbps, 44.1 kHz, joint stereo: 417 bytes and 1152 samples per frame
+    private static final byte[] FRAME_HEADER = {(byte) 0xFF, (byte) 0xFB, (byte) 0x90, 0x64};
+    private static final int FRAME_LENGTH = 417;
+    private static final int TAG_OFFSET = 4 + 32;
+
+    @Test
+    void estimatesConstantBitrateFromFileSize() {
+        final byte[] frames = frames(10);
+
+        assertEquals(10 * FRAME_LENGTH * 8.0 / 128, Mp3Duration.durationMillis(frames, frames.length), 0.001);
+    }
+
+    @Test
+    void usesTheFileSizeBeyondTheBytesRead() {
+        final byte[] frames = frames(10);
+
+        assertEquals(1_000_000 * 8.0 / 128, Mp3Duration.durationMillis(frames, 1_000_000), 0.001);
+    }
+
+    @Test
+    void readsFrameCountFromXingHeader() {
+        final byte[] frames = frames(3);
+        writeTag(frames, TAG_OFFSET, "Xing");
+        writeInt(frames, TAG_OFFSET + 4, 0x1);
+        writeInt(frames, TAG_OFFSET + 8, 1000);
+
+        assertEquals(1000 * 1152 * 1000.0 / 44100, Mp3Duration.durationMillis(frames, 1_000_000), 0.001);
+    }
+
+    @Test
+    void fallsBackToBitrateWhenXingHasNoFrameCount() {
+        final byte[] frames = frames(3);
+        writeTag(frames, TAG_OFFSET, "Info");
+        writeInt(frames, TAG_OFFSET + 4, 0x2);
+
+        assertEquals(frames.length * 8.0 / 128, Mp3Duration.durationMillis(frames, frames.length), 0.001);
+    }
+
+    @Test
+    void readsFrameCountFromVbriHeader() {
+        final byte[] frames = frames(3);
+        writeTag(frames, TAG_OFFSET, "VBRI");
+        writeInt(frames, TAG_OFFSET + 14, 5000);
+
+        assertEquals(5000 * 1152 * 1000.0 / 44100, Mp3Duration.durationMillis(frames, 1_000_000), 0.001);
+    }
+
+    @Test
+    void skipsAnId3TagLargerThanTheHeaderRead() {
+        final byte[] head = new byte[Mp3Duration.HEADER_BYTES];
+        writeTag(head, 0, "ID3");
+        head[3] = 4;
+        // synchsafe 0x00 0x01 0x00 0x00 = 16384 bytes
+        head[7] = 0x01;
+
+        assertEquals(10 + 16384, Mp3Duration.audioOffset(head));
+    }
+
+    @Test
+    void countsTheId3Footer() {
+        final byte[] head = new byte[10];
+        writeTag(head, 0, "ID3");
+        head[5] = 0x10;
+        head[9] = 0x7F;
+
+        assertEquals(10 + 127 + 10, Mp3Duration.audioOffset(head));
+    }
+
+    @Test
+    void returnsZeroOffsetWithoutId3Tag() {
+        assertEquals(0, Mp3Duration.audioOffset(frames(1)));
+    }
+
+    @Test
+    void ignoresASyncWordNotFollowedByAFrame() {
+        final byte[] frames = new byte[3 + 10 * FRAME_LENGTH];
+        System.arraycopy(FRAME_HEADER, 0, frames, 0, FRAME_HEADER.length);
+        final byte[] audio = frames(10);
+        System.arraycopy(audio, 0, frames, 3, audio.length);
+
+        assertEquals((frames.length - 3) * 8.0 / 128, Mp3Duration.durationMillis(frames, frames.length), 0.001);
+    }
+
+    @Test
+    void returnsZeroWithoutFrames() {
+        assertEquals(0.0, Mp3Duration.durationMillis(new byte[1024], 1024));
+    }
+
+    private static byte[] frames(final int count) {
+        final byte[] frames = new byte[count * FRAME_LENGTH];
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(FRAME_HEADER, 0, frames, i * FRAME_LENGTH, FRAME_HEADER.length);
+        }
+        return frames;
+    }
+
+    private static void writeTag(final byte[] bytes, final int offset, final String tag) {
+        final byte[] ascii = tag.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(ascii, 0, bytes, offset, ascii.length);
+    }
+
+    private static void writeInt(final byte[] bytes, final int offset, final int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+}